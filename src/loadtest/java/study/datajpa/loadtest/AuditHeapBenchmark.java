@@ -0,0 +1,78 @@
+package study.datajpa.loadtest;
+
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.AuditorIdFormat;
+import study.datajpa.entity.Member;
+
+import javax.persistence.EntityManager;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * created_by, updated_by 컬럼 형식(member.audit.auditor-format)별로 멤버를 영속성 컨텍스트에 올렸을 때의 힙과 할당량
+ * 형식마다 애플리케이션을 따로 띄우고(새 인메모리 H2) 같은 수의 멤버를 넣은 뒤 실제 엔티티로 전부 조회한다.
+ * (BenchmarkMain이 넘겨준 context는 형식을 바꿀 수 없어서 쓰지 않는다)
+ * - loadedBytesPerMember : 조회 후 늘어난 힙 (엔티티 + 스냅샷 + 영속성 컨텍스트)
+ * - loadAllocatedBytesPerMember : 조회하는 동안 할당한 바이트 (STRING은 행마다 UUID 문자열을 만들고 파싱한다)
+ * - auditColumnLength : 저장된 created_by 길이 (STRING은 문자 수, BINARY는 바이트 수)
+ *
+ * bench.audit.members : 멤버 수 (기본 1000000, 힙이 부족하면 -Pbench.heap=4g)
+ */
+public class AuditHeapBenchmark implements Benchmark {
+
+    @Override
+    public String name() {
+        return "audit-heap";
+    }
+
+    @Override
+    public Map<String, Object> run(ConfigurableApplicationContext context) {
+        int members = Integer.getInteger("bench.audit.members", 1_000_000);
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("members", members);
+        for (AuditorIdFormat format : AuditorIdFormat.values()) {
+            ConfigurableApplicationContext formatContext = LoadTestMain.start("bench-audit-" + format.name().toLowerCase(),
+                    "--member.audit.auditor-format=" + format.name());
+            try {
+                result.put(format.name().toLowerCase(), measure(formatContext, members));
+            } finally {
+                formatContext.close();
+            }
+        }
+        return result;
+    }
+
+    private static Map<String, Object> measure(ConfigurableApplicationContext context, int members) {
+        EntityManager em = context.getBean(EntityManager.class);
+        TransactionTemplate tx = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+
+        BenchmarkMain.insertMembers(context, members, i -> Member.builder()
+                .username("member" + i)
+                .age(i % 100)
+                .build());
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        tx.executeWithoutResult(status -> {
+            Number columnLength = (Number) em.createNativeQuery("select max(length(created_by)) from member")
+                    .getSingleResult();
+
+            long heapBefore = BenchmarkMain.usedHeapKB();
+            long allocatedBefore = BenchmarkMain.allocatedBytes();
+            List<Member> loaded = em.createQuery("select m from Member m", Member.class).getResultList();
+            long allocated = BenchmarkMain.allocatedBytes() - allocatedBefore;
+            long loadedKB = BenchmarkMain.usedHeapKB() - heapBefore;
+
+            result.put("auditColumnLength", columnLength.longValue());
+            result.put("loadedHeapKB", loadedKB);
+            result.put("loadedBytesPerMember", loadedKB * 1024 / loaded.size());
+            result.put("loadAllocatedBytesPerMember", allocated / loaded.size());
+            // 값이 실제로 읽혔는지 (컨버터가 적용됐는지)
+            result.put("sampleCreatedBy", String.valueOf(loaded.get(0).getCreatedBy()));
+        });
+        return result;
+    }
+}
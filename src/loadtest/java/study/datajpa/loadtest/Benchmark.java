@@ -0,0 +1,16 @@
+package study.datajpa.loadtest;
+
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.Map;
+
+/**
+ * BenchmarkMain에서 실행하는 측정 시나리오 하나
+ * 결과는 JSON으로 남길 값(시간 단위는 키 이름에 붙인다. flushMillis, heapKB ...)
+ */
+public interface Benchmark {
+
+    String name();
+
+    Map<String, Object> run(ConfigurableApplicationContext context) throws Exception;
+}
@@ -0,0 +1,110 @@
+package study.datajpa.loadtest;
+
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+
+import javax.persistence.EntityManager;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
+
+/**
+ * 기능별 측정 시나리오 실행기 (HTTP 부하가 아니라 한 기능의 시간, 힙을 잰다)
+ * ./gradlew benchmark -Pbench.names=flush-cost
+ * ./gradlew benchmark -Pbench.names=change-team -Pbench.team.members=100000
+ * ./gradlew benchmark -Pbench.names=flush-cost -PsnapshotDirtyChecking (바이트코드 향상 없이 빌드해서 비교)
+ *
+ * 1. 시나리오마다 새 인메모리 H2로 애플리케이션을 띄운다. (LoadTestMain.start)
+ * 2. 시나리오를 실행하고 결과를 build/loadtest/bench-{이름}-{시각}.json 에 남긴다.
+ *
+ * 설정 (시스템 프로퍼티)
+ * bench.names : 실행할 시나리오 (쉼표로 구분, 기본 전체)
+ * 시나리오별 설정은 각 Benchmark 클래스 참고
+ */
+public class BenchmarkMain {
+
+    private static final List<Benchmark> BENCHMARKS = List.of(
+            new FlushCostBenchmark(),
+            new ChangeTeamBenchmark(),
+            new PageJsonBenchmark(),
+            new PathBindingBenchmark(),
+            new AuditHeapBenchmark());
+
+    public static void main(String[] args) throws Exception {
+        Map<String, Benchmark> benchmarks = BENCHMARKS.stream()
+                .collect(Collectors.toMap(Benchmark::name, Function.identity(), (a, b) -> a, LinkedHashMap::new));
+        String names = System.getProperty("bench.names", String.join(",", benchmarks.keySet()));
+
+        for (String name : Arrays.asList(names.split(","))) {
+            Benchmark benchmark = benchmarks.get(name.trim());
+            if (benchmark == null) {
+                throw new IllegalArgumentException("없는 시나리오 : " + name + " (" + benchmarks.keySet() + ")");
+            }
+            ConfigurableApplicationContext context = LoadTestMain.start("bench-" + benchmark.name());
+            try {
+                System.out.println("benchmark " + benchmark.name());
+                Map<String, Object> result = new LinkedHashMap<>();
+                result.put("timestamp", LocalDateTime.now().toString());
+                result.put("benchmark", benchmark.name());
+                result.put("jvmArgs", ManagementFactory.getRuntimeMXBean().getInputArguments());
+                result.put("result", benchmark.run(context));
+                System.out.println(result.get("result"));
+                LoadTestMain.writeJson("bench-" + benchmark.name(), result);
+            } finally {
+                context.close();
+            }
+        }
+    }
+
+    /**
+     * 멤버를 1000명씩 나눠서 커밋하면서 넣는다.
+     * factory는 트랜잭션 안에서 호출된다. (em.getReference 사용 가능)
+     */
+    static void insertMembers(ConfigurableApplicationContext context, int members, IntFunction<Member> factory) {
+        EntityManager em = context.getBean(EntityManager.class);
+        TransactionTemplate tx = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        for (int from = 0; from < members; from += 1000) {
+            int start = from;
+            tx.executeWithoutResult(status -> {
+                for (int i = start; i < Math.min(start + 1000, members); i++) {
+                    em.persist(factory.apply(i));
+                }
+                em.flush();
+                em.clear();
+            });
+        }
+    }
+
+    /**
+     * GC 후 사용 중인 힙 (KB)
+     */
+    static long usedHeapKB() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        Runtime runtime = Runtime.getRuntime();
+        return (runtime.totalMemory() - runtime.freeMemory()) / 1024;
+    }
+
+    /**
+     * 현재 스레드가 지금까지 할당한 바이트 (HotSpot)
+     */
+    static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+                .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    static long median(List<Long> values) {
+        List<Long> sorted = values.stream().sorted().collect(Collectors.toList());
+        return sorted.get(sorted.size() / 2);
+    }
+}
@@ -0,0 +1,89 @@
+package study.datajpa.loadtest;
+
+import org.hibernate.Hibernate;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.repository.StatementCounter;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 멤버가 많은 팀에 changeTeam() 하는 비용 (Team.members가 EXTRA 지연로딩이라 컬렉션을 초기화하지 않는다)
+ * 비교용으로 같은 팀의 members 컬렉션을 초기화하는 시간도 잰다. (일반 지연로딩이면 add() 할 때 이만큼 든다)
+ *
+ * bench.team.members : 팀의 멤버 수 (기본 100000)
+ * bench.repeat       : 반복 횟수 (기본 5, 결과는 중앙값과 전체)
+ */
+public class ChangeTeamBenchmark implements Benchmark {
+
+    @Override
+    public String name() {
+        return "change-team";
+    }
+
+    @Override
+    public Map<String, Object> run(ConfigurableApplicationContext context) {
+        int members = Integer.getInteger("bench.team.members", 100_000);
+        int repeat = Integer.getInteger("bench.repeat", 5);
+        EntityManager em = context.getBean(EntityManager.class);
+        StatementCounter statementCounter = context.getBean(StatementCounter.class);
+        TransactionTemplate tx = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+
+        Long teamNo = tx.execute(status -> {
+            Team team = Team.builder().name("bigTeam").build();
+            em.persist(team);
+            return team.getTeamNo();
+        });
+        BenchmarkMain.insertMembers(context, members, i -> Member.builder()
+                .username("member" + i)
+                .age(i % 100)
+                .team(em.getReference(Team.class, teamNo))
+                .build());
+
+        List<Long> changeTeamMicros = new ArrayList<>();
+        List<Long> changeTeamStatements = new ArrayList<>();
+        List<Long> initializeMicros = new ArrayList<>();
+        boolean[] initialized = new boolean[1];
+        for (int round = 0; round < repeat; round++) {
+            int suffix = round;
+            tx.executeWithoutResult(status -> {
+                Team team = em.find(Team.class, teamNo);
+                Member member = Member.builder().username("joiner" + suffix).age(20).build();
+                em.persist(member);
+
+                long statementsBefore = statementCounter.current();
+                long start = System.nanoTime();
+                member.changeTeam(team);
+                em.flush();
+                changeTeamMicros.add((System.nanoTime() - start) / 1_000);
+                changeTeamStatements.add(statementCounter.current() - statementsBefore);
+                initialized[0] = Hibernate.isInitialized(team.getMembers());
+                em.clear();
+            });
+            tx.executeWithoutResult(status -> {
+                Team team = em.find(Team.class, teamNo);
+                long start = System.nanoTime();
+                Hibernate.initialize(team.getMembers());
+                initializeMicros.add((System.nanoTime() - start) / 1_000);
+                em.clear();
+            });
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("members", members);
+        result.put("collectionInitialized", initialized[0]);
+        result.put("changeTeamMicrosMedian", BenchmarkMain.median(changeTeamMicros));
+        result.put("changeTeamMicros", changeTeamMicros);
+        result.put("changeTeamStatements", changeTeamStatements);
+        result.put("initializeMicrosMedian", BenchmarkMain.median(initializeMicros));
+        result.put("initializeMicros", initializeMicros);
+        return result;
+    }
+}
@@ -0,0 +1,54 @@
+package study.datajpa.loadtest;
+
+import lombok.Getter;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 엔드포인트 하나의 응답시간 분포(HdrHistogram)와 에러 수
+ * 응답시간은 마이크로초 단위로 기록한다. (최대 1분, 유효숫자 3자리)
+ */
+@Getter
+public class EndpointStats {
+
+    private final String name;
+    private final Histogram histogram = new ConcurrentHistogram(TimeUnit.MINUTES.toMicros(1), 3);
+    private final LongAdder errors = new LongAdder();
+
+    public EndpointStats(String name) {
+        this.name = name;
+    }
+
+    public void record(long latencyNanos, boolean success) {
+        histogram.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(latencyNanos), histogram.getHighestTrackableValue()));
+        if (!success) {
+            errors.increment();
+        }
+    }
+
+    public Map<String, Object> toResult(double durationSeconds) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("count", histogram.getTotalCount());
+        result.put("errors", errors.sum());
+        result.put("throughput", histogram.getTotalCount() / durationSeconds);
+        result.put("p50", histogram.getValueAtPercentile(50));
+        result.put("p90", histogram.getValueAtPercentile(90));
+        result.put("p99", histogram.getValueAtPercentile(99));
+        result.put("p999", histogram.getValueAtPercentile(99.9));
+        result.put("max", histogram.getMaxValue());
+        result.put("mean", histogram.getMean());
+        // 빌드끼리 분포 전체를 비교할 수 있도록 압축한 히스토그램도 같이 남긴다.
+        ByteBuffer buffer = ByteBuffer.allocate(histogram.getNeededByteBufferCapacity());
+        int length = histogram.encodeIntoCompressedByteBuffer(buffer);
+        result.put("histogram", Base64.getEncoder().encodeToString(Arrays.copyOf(buffer.array(), length)));
+        return result;
+    }
+}
@@ -0,0 +1,74 @@
+package study.datajpa.loadtest;
+
+import org.hibernate.engine.spi.SelfDirtinessTracker;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * flush 비용 (바이트코드 향상 dirty tracking vs 스냅샷 비교)
+ * 멤버 bench.flush.members명을 한 영속성 컨텍스트에 올리고 10명 중 1명을 수정한 다음 flush 시간을 잰다.
+ * 로딩 전후 힙 차이도 같이 남긴다. (스냅샷 방식은 엔티티마다 로딩 시점 값 배열을 하나 더 들고 있다)
+ * -PsnapshotDirtyChecking 빌드와 결과 파일을 비교한다.
+ *
+ * bench.flush.members : 멤버 수 (기본 10000)
+ * bench.repeat        : 반복 횟수 (기본 5, 결과는 중앙값과 전체)
+ */
+public class FlushCostBenchmark implements Benchmark {
+
+    @Override
+    public String name() {
+        return "flush-cost";
+    }
+
+    @Override
+    public Map<String, Object> run(ConfigurableApplicationContext context) {
+        int members = Integer.getInteger("bench.flush.members", 10_000);
+        int repeat = Integer.getInteger("bench.repeat", 5);
+        EntityManager em = context.getBean(EntityManager.class);
+        TransactionTemplate tx = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+
+        BenchmarkMain.insertMembers(context, members, i -> Member.builder()
+                .username("member" + i)
+                .age(i % 100)
+                .build());
+
+        List<Long> flushMicros = new ArrayList<>();
+        List<Long> heapKB = new ArrayList<>();
+        boolean[] enhanced = new boolean[1];
+        for (int round = 0; round < repeat; round++) {
+            int suffix = round;
+            tx.executeWithoutResult(status -> {
+                long heapBefore = BenchmarkMain.usedHeapKB();
+                List<Member> loaded = em.createQuery("select m from Member m", Member.class).getResultList();
+                heapKB.add(BenchmarkMain.usedHeapKB() - heapBefore);
+                enhanced[0] = loaded.get(0) instanceof SelfDirtinessTracker;
+
+                for (int i = 0; i < loaded.size(); i += 10) {
+                    loaded.get(i).changeUsername("changed" + suffix + "-" + i);
+                }
+                long start = System.nanoTime();
+                em.flush();
+                flushMicros.add((System.nanoTime() - start) / 1_000);
+                em.clear();
+            });
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("enhanced", enhanced[0]);
+        result.put("members", members);
+        result.put("changed", (members + 9) / 10);
+        result.put("flushMicrosMedian", BenchmarkMain.median(flushMicros));
+        result.put("flushMicros", flushMicros);
+        result.put("loadedHeapKBMedian", BenchmarkMain.median(heapKB));
+        result.put("loadedHeapKB", heapKB);
+        return result;
+    }
+}
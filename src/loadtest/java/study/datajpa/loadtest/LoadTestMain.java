@@ -0,0 +1,182 @@
+package study.datajpa.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.DataJpaApplication;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.TeamRepository;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * /members, /members/{id}, /members2/{id} 부하 테스트
+ * ./gradlew loadTest -Ploadtest.members=10000 -Ploadtest.rate=500 -Ploadtest.duration=60
+ *
+ * 1. 인메모리 H2로 애플리케이션을 띄운다. (랜덤 포트, SQL 로그 끔)
+ * 2. 팀/멤버 데이터를 넣는다.
+ * 3. 워밍업 후 정해진 도착률로 엔드포인트 비율(mix)대로 요청을 보낸다.
+ * 4. 결과를 build/loadtest/result-{시각}.json 에 남긴다. (응답시간 단위 : us)
+ *    측정하는 동안의 커넥션 풀 사용량(hikaricp.connections.active, pending)도 pool에 같이 남긴다. (PoolStats)
+ *
+ * 설정 (시스템 프로퍼티)
+ * loadtest.members  : 멤버 수 (기본 10000)
+ * loadtest.teams    : 팀 수 (기본 10)
+ * loadtest.rate     : 초당 요청 수 (기본 200)
+ * loadtest.duration : 측정 시간(초) (기본 30)
+ * loadtest.warmup   : 워밍업 시간(초) (기본 10)
+ * loadtest.mix      : 엔드포인트별 비율 (기본 members:20,member:60,members2:20)
+ */
+public class LoadTestMain {
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int members = Integer.getInteger("loadtest.members", 10_000);
+        int teams = Integer.getInteger("loadtest.teams", 10);
+        double rate = Double.parseDouble(System.getProperty("loadtest.rate", "200"));
+        Duration duration = Duration.ofSeconds(Long.getLong("loadtest.duration", 30));
+        Duration warmup = Duration.ofSeconds(Long.getLong("loadtest.warmup", 10));
+        Map<String, Integer> mix = parseMix(System.getProperty("loadtest.mix", "members:20,member:60,members2:20"));
+
+        ConfigurableApplicationContext context = start("loadtest");
+        try {
+            long maxId = seed(context, members, teams);
+            String baseUrl = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+
+            System.out.println("warmup " + warmup.getSeconds() + "s");
+            driver(mix, new LinkedHashMap<>()).run(baseUrl, rate, warmup, maxId);
+
+            System.out.println("run " + duration.getSeconds() + "s @ " + rate + " req/s");
+            Map<String, EndpointStats> stats = new LinkedHashMap<>();
+            PoolStats pool = new PoolStats(context.getBean(MeterRegistry.class), 50);
+            try {
+                driver(mix, stats).run(baseUrl, rate, duration, maxId);
+            } finally {
+                pool.close();
+            }
+
+            writeResult(context, members, teams, rate, duration, mix, stats, pool);
+        } finally {
+            context.close();
+        }
+    }
+
+    /**
+     * 인메모리 H2(database)로 애플리케이션을 띄운다. (랜덤 포트, SQL 로그 끔)
+     * 커맨드라인 인자는 application.yml보다 우선순위가 높다. (extraArgs : 시나리오별 설정, 예) --member.audit.auditor-format=BINARY)
+     */
+    static ConfigurableApplicationContext start(String database, String... extraArgs) {
+        List<String> args = new ArrayList<>(List.of(
+                "--spring.datasource.url=jdbc:h2:mem:" + database + ";DB_CLOSE_DELAY=-1",
+                "--server.port=0",
+                "--spring.jpa.properties.hibernate.show_sql=false",
+                "--logging.level.org.hibernate.SQL=warn",
+                "--decorator.datasource.p6spy.enable-logging=false"));
+        args.addAll(List.of(extraArgs));
+        return new SpringApplicationBuilder(DataJpaApplication.class)
+                .run(args.toArray(new String[0]));
+    }
+
+    private static WorkloadDriver driver(Map<String, Integer> mix, Map<String, EndpointStats> stats) {
+        WorkloadDriver driver = new WorkloadDriver();
+        stats.put("members", driver.addEndpoint("members", mix.getOrDefault("members", 0), id -> "/members?page=" + (id % 10 + 1) + "&size=20"));
+        stats.put("member", driver.addEndpoint("member", mix.getOrDefault("member", 0), id -> "/members/" + id));
+        stats.put("members2", driver.addEndpoint("members2", mix.getOrDefault("members2", 0), id -> "/members2/" + id));
+        return driver;
+    }
+
+    private static long seed(ConfigurableApplicationContext context, int members, int teams) {
+        MemberRepository memberRepository = context.getBean(MemberRepository.class);
+        TeamRepository teamRepository = context.getBean(TeamRepository.class);
+        TransactionTemplate tx = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+
+        List<Team> savedTeams = tx.execute(status -> {
+            List<Team> list = new ArrayList<>();
+            for (int i = 0; i < teams; i++) {
+                list.add(teamRepository.save(Team.builder().name("team" + i).build()));
+            }
+            return list;
+        });
+
+        long maxId = 0;
+        for (int from = 0; from < members; from += 1000) {
+            int to = Math.min(from + 1000, members);
+            int start = from;
+            Long lastId = tx.execute(status -> {
+                Member last = null;
+                for (int i = start; i < to; i++) {
+                    last = memberRepository.save(Member.builder()
+                            .username("member" + i)
+                            .age(i % 100)
+                            .team(savedTeams.get(i % teams))
+                            .build());
+                }
+                return last.getMemberNo();
+            });
+            maxId = lastId;
+        }
+        System.out.println("seeded members=" + members + " teams=" + teams);
+        return maxId;
+    }
+
+    private static void writeResult(ConfigurableApplicationContext context, int members, int teams, double rate, Duration duration,
+                                    Map<String, Integer> mix, Map<String, EndpointStats> stats, PoolStats pool) throws IOException {
+        Map<String, Object> settings = new LinkedHashMap<>();
+        settings.put("members", members);
+        settings.put("teams", teams);
+        settings.put("rate", rate);
+        settings.put("durationSeconds", duration.getSeconds());
+        settings.put("mix", mix);
+        settings.put("collapseWindow", context.getEnvironment().getProperty("member.collapse.window", "2ms"));
+        settings.put("collapseMaxBatchSize", context.getEnvironment().getProperty("member.collapse.max-batch-size", "100"));
+        settings.put("maximumPoolSize", context.getEnvironment().getProperty("spring.datasource.hikari.maximum-pool-size", "10"));
+
+        Map<String, Object> endpoints = new LinkedHashMap<>();
+        for (EndpointStats stat : stats.values()) {
+            if (stat.getHistogram().getTotalCount() > 0) {
+                endpoints.put(stat.getName(), stat.toResult(duration.getSeconds()));
+            }
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("timestamp", LocalDateTime.now().toString());
+        result.put("unit", "us");
+        result.put("settings", settings);
+        result.put("endpoints", endpoints);
+        result.put("pool", pool.toResult());
+
+        writeJson("result", result);
+    }
+
+    // build/loadtest/{prefix}-{시각}.json
+    static void writeJson(String prefix, Map<String, Object> result) throws IOException {
+        File dir = new File("build/loadtest");
+        dir.mkdirs();
+        File file = new File(dir, prefix + "-" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")) + ".json");
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file, result);
+        System.out.println("result : " + file.getAbsolutePath());
+    }
+
+    private static Map<String, Integer> parseMix(String value) {
+        Map<String, Integer> mix = new LinkedHashMap<>();
+        for (String entry : value.split(",")) {
+            String[] pair = entry.trim().split(":");
+            mix.put(pair[0], Integer.parseInt(pair[1]));
+        }
+        return mix;
+    }
+}
@@ -0,0 +1,110 @@
+package study.datajpa.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.controller.MemberPageJsonWriter;
+import study.datajpa.dto.MemberDto;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.repository.MemberRepository;
+
+import javax.persistence.EntityManager;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * GET /members 응답 한 번을 만들 때 할당하는 바이트 (Page<MemberDto> Jackson 직렬화 vs compact 포맷)
+ * 같은 Page<Member>를 미리 로딩해두고 직렬화만 반복한다. (조회, HTTP 비용 제외)
+ * 할당량은 현재 스레드의 할당 바이트 차이로 잰다.
+ *
+ * bench.page.size       : 페이지 크기 (기본 20)
+ * bench.page.iterations : 한 라운드에 직렬화하는 횟수 (기본 10000, 같은 횟수만큼 워밍업)
+ * bench.repeat          : 반복 횟수 (기본 5, 결과는 중앙값과 전체)
+ */
+public class PageJsonBenchmark implements Benchmark {
+
+    @Override
+    public String name() {
+        return "page-json";
+    }
+
+    @Override
+    public Map<String, Object> run(ConfigurableApplicationContext context) throws IOException {
+        int size = Integer.getInteger("bench.page.size", 20);
+        int iterations = Integer.getInteger("bench.page.iterations", 10_000);
+        int repeat = Integer.getInteger("bench.repeat", 5);
+        EntityManager em = context.getBean(EntityManager.class);
+        ObjectMapper objectMapper = context.getBean(ObjectMapper.class);
+        MemberPageJsonWriter writer = context.getBean(MemberPageJsonWriter.class);
+        MemberRepository memberRepository = context.getBean(MemberRepository.class);
+        TransactionTemplate tx = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+
+        Long teamNo = tx.execute(status -> {
+            Team team = Team.builder().name("teamA").build();
+            em.persist(team);
+            return team.getTeamNo();
+        });
+        BenchmarkMain.insertMembers(context, size * 10, i -> Member.builder()
+                .username("member" + i)
+                .age(i % 100)
+                .team(em.getReference(Team.class, teamNo))
+                .build());
+        // 팀까지 초기화해서 트랜잭션 밖에서도 직렬화할 수 있게
+        Page<Member> page = tx.execute(status -> {
+            Page<Member> members = memberRepository.findAll(PageRequest.of(1, size));
+            members.forEach(member -> member.getTeam().getName());
+            return members;
+        });
+
+        PageSerializer pageJson = out -> objectMapper.writeValue(out, page.map(MemberDto::new));
+        PageSerializer compactJson = out -> writer.write(page, out);
+        measure(pageJson, iterations);
+        measure(compactJson, iterations);
+
+        List<Long> pageBytes = new ArrayList<>();
+        List<Long> compactBytes = new ArrayList<>();
+        for (int round = 0; round < repeat; round++) {
+            pageBytes.add(measure(pageJson, iterations));
+            compactBytes.add(measure(compactJson, iterations));
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("pageSize", size);
+        result.put("pageResponseBytes", responseBytes(pageJson));
+        result.put("compactResponseBytes", responseBytes(compactJson));
+        result.put("pageAllocatedBytesPerResponseMedian", BenchmarkMain.median(pageBytes));
+        result.put("pageAllocatedBytesPerResponse", pageBytes);
+        result.put("compactAllocatedBytesPerResponseMedian", BenchmarkMain.median(compactBytes));
+        result.put("compactAllocatedBytesPerResponse", compactBytes);
+        return result;
+    }
+
+    // 응답 하나당 할당 바이트
+    private static long measure(PageSerializer serializer, int iterations) throws IOException {
+        OutputStream out = OutputStream.nullOutputStream();
+        long before = BenchmarkMain.allocatedBytes();
+        for (int i = 0; i < iterations; i++) {
+            serializer.write(out);
+        }
+        return (BenchmarkMain.allocatedBytes() - before) / iterations;
+    }
+
+    private static int responseBytes(PageSerializer serializer) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        serializer.write(out);
+        return out.size();
+    }
+
+    private interface PageSerializer {
+        void write(OutputStream out) throws IOException;
+    }
+}
@@ -0,0 +1,111 @@
+package study.datajpa.loadtest;
+
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.convert.ConversionService;
+import study.datajpa.dto.UsernameOnlyDto;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.StatementCounter;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * /members2/{id} 경로 변수 바인딩 비용 (도메인 클래스 컨버터로 Member 엔티티 vs UsernameOnlyDtoConverter)
+ * MVC가 쓰는 mvcConversionService로 같은 id 문자열을 두 타입으로 변환한다. (HTTP 비용 제외)
+ * 변환 하나당 시간, 할당 바이트, SQL 수를 남긴다.
+ *
+ * bench.binding.members    : 멤버 수 (기본 10000)
+ * bench.binding.iterations : 한 라운드에 변환하는 횟수 (기본 10000, 같은 횟수만큼 워밍업)
+ * bench.repeat             : 반복 횟수 (기본 5, 결과는 중앙값과 전체)
+ */
+public class PathBindingBenchmark implements Benchmark {
+
+    @Override
+    public String name() {
+        return "path-binding";
+    }
+
+    @Override
+    public Map<String, Object> run(ConfigurableApplicationContext context) {
+        int members = Integer.getInteger("bench.binding.members", 10_000);
+        int iterations = Integer.getInteger("bench.binding.iterations", 10_000);
+        int repeat = Integer.getInteger("bench.repeat", 5);
+        ConversionService conversionService = context.getBean("mvcConversionService", ConversionService.class);
+        StatementCounter statementCounter = context.getBean(StatementCounter.class);
+
+        BenchmarkMain.insertMembers(context, members, i -> Member.builder()
+                .username("member" + i)
+                .age(i % 100)
+                .build());
+        long minId = context.getBean(EntityManager.class)
+                .createQuery("select min(m.memberNo) from Member m", Long.class)
+                .getSingleResult();
+
+        Binding entity = id -> conversionService.convert(id, Member.class).getUsername();
+        Binding projection = id -> conversionService.convert(id, UsernameOnlyDto.class).getUsername();
+        // 워밍업
+        new Measurement(entity, minId, members, iterations, statementCounter);
+        new Measurement(projection, minId, members, iterations, statementCounter);
+
+        List<Measurement> entityRounds = new ArrayList<>();
+        List<Measurement> projectionRounds = new ArrayList<>();
+        for (int round = 0; round < repeat; round++) {
+            entityRounds.add(new Measurement(entity, minId, members, iterations, statementCounter));
+            projectionRounds.add(new Measurement(projection, minId, members, iterations, statementCounter));
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("members", members);
+        result.put("iterations", iterations);
+        result.put("entity", summary(entityRounds));
+        result.put("projection", summary(projectionRounds));
+        return result;
+    }
+
+    private static Map<String, Object> summary(List<Measurement> rounds) {
+        List<Long> nanos = new ArrayList<>();
+        List<Long> bytes = new ArrayList<>();
+        for (Measurement round : rounds) {
+            nanos.add(round.nanosPerBinding);
+            bytes.add(round.allocatedBytesPerBinding);
+        }
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("nanosPerBindingMedian", BenchmarkMain.median(nanos));
+        summary.put("nanosPerBinding", nanos);
+        summary.put("allocatedBytesPerBindingMedian", BenchmarkMain.median(bytes));
+        summary.put("allocatedBytesPerBinding", bytes);
+        summary.put("statementsPerBinding", rounds.get(rounds.size() - 1).statementsPerBinding);
+        return summary;
+    }
+
+    private interface Binding {
+        String bind(String id);
+    }
+
+    // 임의의 id로 iterations번 변환한 결과 (변환 하나당 평균)
+    private static class Measurement {
+        private final long nanosPerBinding;
+        private final long allocatedBytesPerBinding;
+        private final double statementsPerBinding;
+
+        private Measurement(Binding binding, long minId, int members, int iterations, StatementCounter statementCounter) {
+            String[] ids = new String[iterations];
+            for (int i = 0; i < iterations; i++) {
+                ids[i] = String.valueOf(minId + ThreadLocalRandom.current().nextInt(members));
+            }
+            long statementsBefore = statementCounter.current();
+            long bytesBefore = BenchmarkMain.allocatedBytes();
+            long start = System.nanoTime();
+            for (String id : ids) {
+                binding.bind(id);
+            }
+            this.nanosPerBinding = (System.nanoTime() - start) / iterations;
+            this.allocatedBytesPerBinding = (BenchmarkMain.allocatedBytes() - bytesBefore) / iterations;
+            this.statementsPerBinding = (double) (statementCounter.current() - statementsBefore) / iterations;
+        }
+    }
+}
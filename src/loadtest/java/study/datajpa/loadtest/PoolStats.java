@@ -0,0 +1,76 @@
+package study.datajpa.loadtest;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.HdrHistogram.Histogram;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 측정하는 동안의 커넥션 풀 사용량 (Hikari 게이지를 일정 간격으로 읽는다)
+ * - hikaricp.connections.active  : 사용 중인 커넥션 수
+ * - hikaricp.connections.pending : 커넥션을 기다리는 스레드 수
+ * 요청 모으기(member.collapse.*) 설정을 바꿔가며 결과 파일의 pool 값을 비교한다.
+ */
+public class PoolStats implements AutoCloseable {
+
+    private static final String ACTIVE = "hikaricp.connections.active";
+    private static final String PENDING = "hikaricp.connections.pending";
+
+    private final MeterRegistry registry;
+    private final Histogram active = new Histogram(10_000, 2);
+    private final Histogram pending = new Histogram(10_000, 2);
+    private final Map<String, Object> before;
+    private final ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "pool-stats");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public PoolStats(MeterRegistry registry, long intervalMillis) {
+        this.registry = registry;
+        this.before = current();
+        sampler.scheduleAtFixedRate(this::sample, 0, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private synchronized void sample() {
+        active.recordValue(Math.min((long) gauge(ACTIVE), active.getHighestTrackableValue()));
+        pending.recordValue(Math.min((long) gauge(PENDING), pending.getHighestTrackableValue()));
+    }
+
+    private double gauge(String name) {
+        Gauge gauge = registry.find(name).gauge();
+        return gauge == null ? 0 : gauge.value();
+    }
+
+    private Map<String, Object> current() {
+        Map<String, Object> values = new LinkedHashMap<>();
+        values.put("active", gauge(ACTIVE));
+        values.put("pending", gauge(PENDING));
+        return values;
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        sampler.shutdown();
+        sampler.awaitTermination(1, TimeUnit.SECONDS);
+    }
+
+    public synchronized Map<String, Object> toResult() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("before", before);
+        result.put("after", current());
+        result.put("samples", active.getTotalCount());
+        result.put("activeMean", active.getMean());
+        result.put("activeP99", active.getValueAtPercentile(99));
+        result.put("activeMax", active.getMaxValue());
+        result.put("pendingMean", pending.getMean());
+        result.put("pendingP99", pending.getValueAtPercentile(99));
+        result.put("pendingMax", pending.getMaxValue());
+        return result;
+    }
+}
@@ -0,0 +1,98 @@
+package study.datajpa.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongFunction;
+
+/**
+ * 오픈 모델 부하 발생기
+ * 응답을 기다렸다가 다음 요청을 보내는(클로즈드 모델) 방식은 서버가 느려지면 요청도 같이 줄어들어서 지연이 가려진다.
+ * -> 정해진 도착률(rate)대로 응답과 상관없이 요청을 보내고,
+ *    응답시간은 실제로 보낸 시각이 아니라 "보냈어야 하는 시각"부터 잰다. (coordinated omission 보정)
+ */
+public class WorkloadDriver {
+
+    private final HttpClient client = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    private final List<Endpoint> endpoints = new ArrayList<>();
+    private int totalWeight;
+
+    public EndpointStats addEndpoint(String name, int weight, LongFunction<String> pathForId) {
+        EndpointStats stats = new EndpointStats(name);
+        if (weight > 0) {
+            endpoints.add(new Endpoint(weight, pathForId, stats));
+            totalWeight += weight;
+        }
+        return stats;
+    }
+
+    /**
+     * @param baseUrl  http://localhost:port
+     * @param rate     초당 요청 수
+     * @param duration 부하 시간
+     * @param maxId    경로에 들어갈 id 범위 (1 ~ maxId)
+     */
+    public void run(String baseUrl, double rate, Duration duration, long maxId) {
+        long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        List<CompletableFuture<?>> inFlight = new ArrayList<>();
+
+        for (long intended = start; intended < end; intended += intervalNanos) {
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            Endpoint endpoint = pick();
+            long id = ThreadLocalRandom.current().nextLong(1, maxId + 1);
+            HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + endpoint.pathForId.apply(id)))
+                    .timeout(Duration.ofSeconds(30))
+                    .GET()
+                    .build();
+            long intendedStart = intended;
+            inFlight.add(client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .handle((response, error) -> {
+                        endpoint.stats.record(System.nanoTime() - intendedStart, error == null && response.statusCode() < 400);
+                        return null;
+                    }));
+            if (inFlight.size() >= 10_000) {
+                inFlight.removeIf(CompletableFuture::isDone);
+            }
+        }
+        CompletableFuture.allOf(inFlight.toArray(new CompletableFuture[0])).join();
+    }
+
+    private Endpoint pick() {
+        int r = ThreadLocalRandom.current().nextInt(totalWeight);
+        for (Endpoint endpoint : endpoints) {
+            r -= endpoint.weight;
+            if (r < 0) {
+                return endpoint;
+            }
+        }
+        return endpoints.get(endpoints.size() - 1);
+    }
+
+    private static class Endpoint {
+        private final int weight;
+        private final LongFunction<String> pathForId;
+        private final EndpointStats stats;
+
+        private Endpoint(int weight, LongFunction<String> pathForId, EndpointStats stats) {
+            this.weight = weight;
+            this.pathForId = pathForId;
+            this.stats = stats;
+        }
+    }
+}
@@ -1,14 +1,18 @@
 package study.datajpa;
 
+import org.hibernate.jpa.boot.internal.EntityManagerFactoryBuilderImpl;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.data.domain.AuditorAware;
 import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import study.datajpa.entity.AuditorId;
+import study.datajpa.entity.AuditorIdFormat;
 
 import java.util.Optional;
-import java.util.UUID;
 
 @EnableJpaAuditing
 @SpringBootApplication
@@ -21,7 +25,13 @@ public class DataJpaApplication {
 	}
 
 	@Bean
-	public AuditorAware<String> auditorProvider() {
-		return () -> Optional.of(UUID.randomUUID().toString());
+	public AuditorAware<AuditorId> auditorProvider() {
+		return () -> Optional.of(AuditorId.random());
+	}
+
+	// created_by, updated_by 컬럼 형식 (기본 STRING : 예전 varchar 컬럼과 호환)
+	@Bean
+	public HibernatePropertiesCustomizer auditorIdFormatCustomizer(@Value("${member.audit.auditor-format:STRING}") AuditorIdFormat format) {
+		return properties -> properties.put(EntityManagerFactoryBuilderImpl.METADATA_BUILDER_CONTRIBUTOR, format.contributor());
 	}
 }
@@ -0,0 +1,98 @@
+package study.datajpa.batch;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+import study.datajpa.event.BulkChangedEvent;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.time.Duration;
+
+/**
+ * PK 범위로 나눠서 실행하는 벌크성 쿼리
+ * MemberRepository.bulkAgePlus()는 update 한 방이라 테이블이 크면 끝날 때까지 row 락을 다 잡고 있고
+ * 그동안 findLockByUsername() 같은 비관적 락 조회가 다 기다려야 한다.
+ * -> 같은 조건을 MEMBER_ID 범위(chunkSize)마다 따로 실행하고 범위마다 커밋해서 락을 잡는 시간을 줄인다.
+ * -> 범위 사이에 pause 만큼 쉬어서 다른 트랜잭션이 끼어들 틈을 준다.
+ *
+ * 주의. 범위마다 커밋하기 때문에 전체가 하나의 트랜잭션이 아니다. (중간에 실패하면 앞의 범위는 이미 반영되어 있다)
+ */
+@Slf4j
+@Component
+public class ChunkedMemberBulkUpdater {
+
+    @PersistenceContext
+    private EntityManager em;
+
+    private final TransactionTemplate rangeTransaction;
+    private final ApplicationEventPublisher publisher;
+    private final int defaultChunkSize;
+    private final Duration defaultPause;
+
+    public ChunkedMemberBulkUpdater(PlatformTransactionManager transactionManager,
+                                    ApplicationEventPublisher publisher,
+                                    @Value("${member.bulk.chunk-size:1000}") int defaultChunkSize,
+                                    @Value("${member.bulk.pause:50ms}") Duration defaultPause) {
+        this.rangeTransaction = new TransactionTemplate(transactionManager);
+        this.rangeTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.publisher = publisher;
+        this.defaultChunkSize = defaultChunkSize;
+        this.defaultPause = defaultPause;
+    }
+
+    public int bulkAgePlus(int age) {
+        return bulkAgePlus(age, defaultChunkSize, defaultPause);
+    }
+
+    public int bulkAgePlus(int age, int chunkSize, Duration pause) {
+        Object[] range = em.createQuery("select min(m.memberNo), max(m.memberNo) from Member m where m.age >= :age", Object[].class)
+                .setParameter("age", age)
+                .getSingleResult();
+        if (range[0] == null) {
+            return 0;
+        }
+        long minId = (Long) range[0];
+        long maxId = (Long) range[1];
+
+        int total = 0;
+        for (long fromId = minId; fromId <= maxId; fromId += chunkSize) {
+            long toId = fromId + chunkSize;
+            Integer updated = rangeTransaction.execute(status -> {
+                int count = em.createQuery("update Member m set m.age = m.age + 1, m.lastModifiedDate = current_timestamp" +
+                                " where m.age >= :age and m.memberNo >= :fromId and m.memberNo < :toId")
+                        .setParameter("age", age)
+                        .setParameter("fromId", fromId)
+                        .setParameter("toId", toId)
+                        .executeUpdate();
+                // 범위가 커밋될 때마다 캐시 등이 바로 반영되도록 트랜잭션 안에서 발행한다.
+                publisher.publishEvent(new BulkChangedEvent(Member.class));
+                return count;
+            });
+            total += updated;
+            log.debug("bulkAgePlus range [{}, {}) updated={}", fromId, toId, updated);
+
+            if (toId <= maxId) {
+                pause(pause);
+            }
+        }
+        return total;
+    }
+
+    private void pause(Duration pause) {
+        if (pause.isZero()) {
+            return;
+        }
+        try {
+            Thread.sleep(pause.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("벌크 업데이트 중단", e);
+        }
+    }
+}
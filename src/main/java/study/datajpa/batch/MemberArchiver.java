@@ -0,0 +1,108 @@
+package study.datajpa.batch;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.Assert;
+import study.datajpa.entity.Member;
+import study.datajpa.event.BulkChangedEvent;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.time.LocalDateTime;
+
+/**
+ * Member 벌크 삭제 / 보관
+ * delete()나 deleteAllById()는 엔티티를 하나씩 조회해서 remove 하기 때문에 row 하나마다 select + delete가 나간다.
+ * -> 엔티티를 조회하지 않고 쿼리로 처리한다.
+ *
+ * 1. archive = true 이면 insert into MemberArchive ... select ... from Member 로 한 번에 보관 테이블에 복사한다.
+ * 2. MEMBER_ID 범위(chunkSize)마다 delete를 따로 커밋한다. (ChunkedMemberBulkUpdater와 같은 이유)
+ *    보관하는 경우 보관 테이블에 들어간 row만 지운다. -> 1번 이후에 조건에 맞게 된 row가 보관 없이 지워지지 않는다.
+ *    중간에 실패해도 다시 실행하면 이미 보관된 row는 건너뛰고 남은 row만 지운다.
+ * 3. 캐시 정리
+ *    - 1차 캐시 : 현재 영속성 컨텍스트(OSIV 포함)를 clear 한다. (@Modifying(clearAutomatically = true)와 같은 역할)
+ *    - 2차 캐시 : EntityManagerFactory.getCache().evict(Member.class) (2차 캐시를 안쓰면 아무 일도 안함)
+ *    - 애플리케이션 캐시 : 범위가 커밋될 때마다 BulkChangedEvent 발행
+ *
+ * 범위마다 새 트랜잭션으로 커밋하기 때문에 트랜잭션 안에서 호출하면 안된다. (호출한 쪽이 잡고 있는 락을 기다리게 된다)
+ */
+@Slf4j
+@Component
+public class MemberArchiver {
+
+    private static final String TEAM_PREDICATE = "m.team.teamNo = :value";
+    private static final String CREATED_BEFORE_PREDICATE = "m.createdDate < :value";
+
+    @PersistenceContext
+    private EntityManager em;
+
+    private final TransactionTemplate chunkTransaction;
+    private final ApplicationEventPublisher publisher;
+    private final int chunkSize;
+
+    public MemberArchiver(PlatformTransactionManager transactionManager,
+                          ApplicationEventPublisher publisher,
+                          @Value("${member.bulk.chunk-size:1000}") int chunkSize) {
+        this.chunkTransaction = new TransactionTemplate(transactionManager);
+        this.chunkTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.publisher = publisher;
+        this.chunkSize = chunkSize;
+    }
+
+    public int bulkDeleteByTeam(Long teamNo, boolean archive) {
+        return bulkDelete(TEAM_PREDICATE, teamNo, archive);
+    }
+
+    public int bulkDeleteCreatedBefore(LocalDateTime cutoff, boolean archive) {
+        return bulkDelete(CREATED_BEFORE_PREDICATE, cutoff, archive);
+    }
+
+    private int bulkDelete(String predicate, Object value, boolean archive) {
+        Assert.state(!TransactionSynchronizationManager.isActualTransactionActive(), "트랜잭션 밖에서 호출해야 합니다.");
+
+        if (archive) {
+            Integer archived = chunkTransaction.execute(status -> em.createQuery(
+                            "insert into MemberArchive (memberNo, username, age, teamNo, createdDate, lastModifiedDate, createdBy, updatedBy, archivedDate)" +
+                                    " select m.memberNo, m.username, m.age, m.team.teamNo, m.createdDate, m.lastModifiedDate, m.createdBy, m.updatedBy, :archivedDate" +
+                                    " from Member m where " + predicate +
+                                    " and not exists (select a.memberNo from MemberArchive a where a.memberNo = m.memberNo)")
+                    .setParameter("archivedDate", LocalDateTime.now())
+                    .setParameter("value", value)
+                    .executeUpdate());
+            log.info("member archived={}", archived);
+        }
+
+        String where = " where " + predicate + (archive ? " and exists (select a.memberNo from MemberArchive a where a.memberNo = m.memberNo)" : "");
+        Object[] range = em.createQuery("select min(m.memberNo), max(m.memberNo) from Member m" + where, Object[].class)
+                .setParameter("value", value)
+                .getSingleResult();
+
+        int deleted = 0;
+        if (range[0] != null) {
+            long maxId = (Long) range[1];
+            for (long fromId = (Long) range[0]; fromId <= maxId; fromId += chunkSize) {
+                long toId = fromId + chunkSize;
+                deleted += chunkTransaction.execute(status -> {
+                    int count = em.createQuery("delete from Member m" + where + " and m.memberNo >= :fromId and m.memberNo < :toId")
+                            .setParameter("value", value)
+                            .setParameter("fromId", fromId)
+                            .setParameter("toId", toId)
+                            .executeUpdate();
+                    publisher.publishEvent(new BulkChangedEvent(Member.class));
+                    return count;
+                });
+            }
+        }
+        log.info("member deleted={}", deleted);
+
+        em.clear();
+        em.getEntityManagerFactory().getCache().evict(Member.class);
+        return deleted;
+    }
+}
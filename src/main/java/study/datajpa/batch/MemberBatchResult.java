@@ -0,0 +1,49 @@
+package study.datajpa.batch;
+
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+public class MemberBatchResult {
+
+    private final String jobName;
+    private final int skippedChunks; // 이전 실행에서 이미 끝난 청크
+    private final List<ChunkResult> chunks;
+
+    public MemberBatchResult(String jobName, int skippedChunks, List<ChunkResult> chunks) {
+        this.jobName = jobName;
+        this.skippedChunks = skippedChunks;
+        this.chunks = chunks;
+    }
+
+    public long getProcessedCount() {
+        return chunks.stream().mapToLong(ChunkResult::getProcessedCount).sum();
+    }
+
+    public boolean isCompleted() {
+        return chunks.stream().allMatch(ChunkResult::isSuccess);
+    }
+
+    @Getter
+    public static class ChunkResult {
+
+        private final long chunkStart;
+        private final long chunkEnd;
+        private final int processedCount;
+        private final long elapsedMillis;
+        private final Exception failure;
+
+        public ChunkResult(long chunkStart, long chunkEnd, int processedCount, long elapsedMillis, Exception failure) {
+            this.chunkStart = chunkStart;
+            this.chunkEnd = chunkEnd;
+            this.processedCount = processedCount;
+            this.elapsedMillis = elapsedMillis;
+            this.failure = failure;
+        }
+
+        public boolean isSuccess() {
+            return failure == null;
+        }
+    }
+}
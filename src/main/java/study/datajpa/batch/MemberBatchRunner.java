@@ -0,0 +1,123 @@
+package study.datajpa.batch;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.batch.MemberBatchResult.ChunkResult;
+import study.datajpa.entity.BatchCheckpoint;
+import study.datajpa.entity.Member;
+import study.datajpa.event.BulkChangedEvent;
+import study.datajpa.repository.BatchCheckpointRepository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Member 테이블 청크 병렬 배치
+ * findAll()로 전부 올리거나 벌크성 쿼리 한 방으로 처리하는 대신
+ * MEMBER_ID를 chunkSize 크기의 범위로 나눠서 고정 크기 스레드 풀에서 병렬로 처리한다.
+ *
+ * - 청크마다 새 트랜잭션(REQUIRES_NEW)을 열고, 끝나면 flush/clear 해서 영속성 컨텍스트가 커지지 않게 한다.
+ * - 청크가 커밋될 때 체크포인트(BatchCheckpoint)도 같이 커밋된다. -> 같은 jobName으로 다시 실행하면 끝난 청크는 건너뛴다.
+ *   (청크 경계는 chunkSize의 배수로 맞추기 때문에 chunkSize를 바꾸지 않으면 재시작해도 경계가 같다)
+ * - 실패한 청크는 롤백되고 결과에 실패로 남는다. 나머지 청크는 계속 진행한다.
+ */
+@Slf4j
+@Component
+public class MemberBatchRunner {
+
+    @PersistenceContext
+    private EntityManager em;
+
+    private final TransactionTemplate chunkTransaction;
+    private final BatchCheckpointRepository checkpointRepository;
+    private final ApplicationEventPublisher publisher;
+
+    public MemberBatchRunner(PlatformTransactionManager transactionManager,
+                             BatchCheckpointRepository checkpointRepository,
+                             ApplicationEventPublisher publisher) {
+        this.chunkTransaction = new TransactionTemplate(transactionManager);
+        this.chunkTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.checkpointRepository = checkpointRepository;
+        this.publisher = publisher;
+    }
+
+    public MemberBatchResult run(String jobName, int chunkSize, int parallelism, MemberChunkProcessor processor) {
+        Object[] range = em.createQuery("select min(m.memberNo), max(m.memberNo) from Member m", Object[].class)
+                .getSingleResult();
+        if (range[0] == null) {
+            return new MemberBatchResult(jobName, 0, List.of());
+        }
+        long minId = (Long) range[0];
+        long maxId = (Long) range[1];
+
+        Set<Long> completed = checkpointRepository.findChunkStartsByJobName(jobName);
+        int skipped = 0;
+
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        try {
+            List<Future<ChunkResult>> futures = new ArrayList<>();
+            for (long chunkStart = Math.floorDiv(minId, chunkSize) * chunkSize; chunkStart <= maxId; chunkStart += chunkSize) {
+                if (completed.contains(chunkStart)) {
+                    skipped++;
+                    continue;
+                }
+                long fromId = chunkStart;
+                long toId = chunkStart + chunkSize;
+                futures.add(executor.submit(() -> runChunk(jobName, fromId, toId, processor)));
+            }
+
+            List<ChunkResult> chunks = new ArrayList<>(futures.size());
+            for (Future<ChunkResult> future : futures) {
+                chunks.add(future.get());
+            }
+            MemberBatchResult result = new MemberBatchResult(jobName, skipped, chunks);
+            log.info("batch [{}] chunks={} skipped={} processed={} completed={}",
+                    jobName, chunks.size(), skipped, result.getProcessedCount(), result.isCompleted());
+            return result;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("배치 중단 : " + jobName, e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("배치 실패 : " + jobName, e.getCause());
+        } finally {
+            executor.shutdownNow();
+            // 벌크성 처리기는 엔티티 리스너를 거치지 않으니 캐시 등은 전체가 바뀌었다고 보게 한다.
+            publisher.publishEvent(new BulkChangedEvent(Member.class));
+        }
+    }
+
+    private ChunkResult runChunk(String jobName, long fromId, long toId, MemberChunkProcessor processor) {
+        long start = System.nanoTime();
+        try {
+            Integer processed = chunkTransaction.execute(status -> {
+                int count = processor.process(em, fromId, toId);
+                em.flush();
+                em.clear();
+                checkpointRepository.save(new BatchCheckpoint(jobName, fromId, toId, count, elapsedMillis(start)));
+                return count;
+            });
+            long elapsed = elapsedMillis(start);
+            log.debug("batch [{}] chunk [{}, {}) processed={} {}ms", jobName, fromId, toId, processed, elapsed);
+            return new ChunkResult(fromId, toId, processed, elapsed, null);
+        } catch (Exception e) {
+            long elapsed = elapsedMillis(start);
+            log.warn("batch [{}] chunk [{}, {}) failed after {}ms", jobName, fromId, toId, elapsed, e);
+            return new ChunkResult(fromId, toId, 0, elapsed, e);
+        }
+    }
+
+    private static long elapsedMillis(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+}
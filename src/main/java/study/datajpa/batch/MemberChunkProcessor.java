@@ -0,0 +1,35 @@
+package study.datajpa.batch;
+
+import study.datajpa.entity.Member;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * MEMBER_ID 범위 [fromId, toId) 하나를 처리한다. 반환값은 처리한 row 수
+ * 트랜잭션, flush/clear, 체크포인트는 MemberBatchRunner가 처리한다.
+ *
+ * 벌크성(set-based) 처리는 람다로 바로 만든다.
+ * (em, fromId, toId) -> em.createQuery("update Member m set ..., m.lastModifiedDate = current_timestamp where m.memberNo >= :fromId and m.memberNo < :toId")...executeUpdate()
+ * (벌크성 쿼리는 auditing을 거치지 않으니 수정일도 직접 바꿔줘야 한다)
+ */
+@FunctionalInterface
+public interface MemberChunkProcessor {
+
+    int process(EntityManager em, long fromId, long toId);
+
+    /**
+     * 엔티티 단위 처리 : 범위 안의 Member를 조회해서 하나씩 처리한다. (변경감지로 업데이트)
+     */
+    static MemberChunkProcessor forEachMember(Consumer<Member> action) {
+        return (em, fromId, toId) -> {
+            List<Member> members = em.createQuery("select m from Member m where m.memberNo >= :fromId and m.memberNo < :toId", Member.class)
+                    .setParameter("fromId", fromId)
+                    .setParameter("toId", toId)
+                    .getResultList();
+            members.forEach(action);
+            return members.size();
+        };
+    }
+}
@@ -0,0 +1,151 @@
+package study.datajpa.cache;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.function.Function;
+
+/**
+ * 요청 모으기(request collapsing) 로더
+ * 여러 요청 스레드에서 들어온 id를 window 시간 또는 maxBatchSize 만큼 모아서 bulkLoader 한 번(where id in (...))으로 조회하고
+ * 결과를 기다리던 요청들에게 나눠준다.
+ * -> 동시 요청이 많아도 실제 쿼리 수와 사용하는 커넥션 수는 maxConcurrentBatches 이하로 유지된다.
+ *
+ * - 같은 배치 안에서 같은 id는 한 번만 조회한다.
+ * - 결과에 없는 id는 null로 완료된다.
+ * - bulkLoader가 실패하면(Error 포함) 그 배치에 있던 요청은 모두 같은 예외로 실패한다.
+ * - close() 이후의 요청과 close() 시점에 아직 배치로 넘어가지 않은 요청은 IllegalStateException으로 실패한다.
+ */
+@Slf4j
+public class BatchingLoader<K, V> implements AutoCloseable {
+
+    private final Function<Collection<K>, Map<K, V>> bulkLoader;
+    private final long windowNanos;
+    private final int maxBatchSize;
+    private final BlockingQueue<Request<K, V>> queue = new LinkedBlockingQueue<>();
+    private final ExecutorService dispatcher;
+    private final ExecutorService workers;
+    // 실행 중인 배치 수 제한. 워커가 다 바쁘면 요청은 큐에 남아서 다음 배치에 더 많이 모인다.
+    private final Semaphore running;
+    private volatile boolean closed;
+
+    public BatchingLoader(String name, Function<Collection<K>, Map<K, V>> bulkLoader,
+                          Duration window, int maxBatchSize, int maxConcurrentBatches) {
+        this.bulkLoader = bulkLoader;
+        this.windowNanos = window.toNanos();
+        this.maxBatchSize = maxBatchSize;
+        this.dispatcher = Executors.newSingleThreadExecutor(r -> daemon(r, name + "-dispatcher"));
+        this.workers = Executors.newFixedThreadPool(maxConcurrentBatches, r -> daemon(r, name + "-worker"));
+        this.running = new Semaphore(maxConcurrentBatches);
+        this.dispatcher.execute(this::dispatch);
+    }
+
+    public CompletableFuture<V> load(K key) {
+        Request<K, V> request = new Request<>(key);
+        if (closed) {
+            request.future.completeExceptionally(closedException());
+            return request.future;
+        }
+        queue.add(request);
+        // close()가 큐를 비운 다음에 들어왔으면 직접 실패시킨다.
+        if (closed) {
+            failQueued();
+        }
+        return request.future;
+    }
+
+    private void dispatch() {
+        List<Request<K, V>> batch = new ArrayList<>();
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                running.acquire();
+                batch.add(queue.take());
+                long deadline = System.nanoTime() + windowNanos;
+                while (batch.size() < maxBatchSize) {
+                    Request<K, V> next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                List<Request<K, V>> submitted = batch;
+                batch = new ArrayList<>();
+                try {
+                    workers.execute(() -> {
+                        try {
+                            execute(submitted);
+                        } finally {
+                            running.release();
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    running.release();
+                    fail(submitted, closedException());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            // 모으던 중에 멈췄으면 그 요청들도 실패시킨다.
+            fail(batch, closedException());
+        }
+    }
+
+    private void execute(List<Request<K, V>> batch) {
+        Map<K, List<CompletableFuture<V>>> waiting = new HashMap<>();
+        for (Request<K, V> request : batch) {
+            waiting.computeIfAbsent(request.key, key -> new ArrayList<>()).add(request.future);
+        }
+        try {
+            Map<K, V> result = bulkLoader.apply(waiting.keySet());
+            waiting.forEach((key, futures) -> futures.forEach(future -> future.complete(result.get(key))));
+        } catch (Throwable e) {
+            // Error(OutOfMemoryError 등)도 잡는다. 안 그러면 워커 스레드만 죽고 기다리던 요청은 끝나지 않는다.
+            log.warn("batch load failed. size={}", waiting.size(), e);
+            waiting.values().forEach(futures -> futures.forEach(future -> future.completeExceptionally(e)));
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        dispatcher.shutdownNow();
+        workers.shutdown();
+        failQueued();
+    }
+
+    private void failQueued() {
+        List<Request<K, V>> queued = new ArrayList<>();
+        queue.drainTo(queued);
+        fail(queued, closedException());
+    }
+
+    private void fail(List<Request<K, V>> requests, Throwable cause) {
+        requests.forEach(request -> request.future.completeExceptionally(cause));
+    }
+
+    private static IllegalStateException closedException() {
+        return new IllegalStateException("BatchingLoader가 종료되었습니다.");
+    }
+
+    private static Thread daemon(Runnable runnable, String name) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    private static class Request<K, V> {
+        private final K key;
+        private final CompletableFuture<V> future = new CompletableFuture<>();
+
+        private Request(K key) {
+            this.key = key;
+        }
+    }
+}
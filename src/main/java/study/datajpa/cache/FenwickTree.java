@@ -0,0 +1,59 @@
+package study.datajpa.cache;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 펜윅 트리 (Binary Indexed Tree) : 0 ~ size-1 인덱스의 빈도를 더하고 구간 합을 O(log n)에 구한다.
+ * 칸마다 AtomicLongArray를 쓰기 때문에 여러 스레드가 동시에 add 해도 값을 잃어버리지 않는다.
+ * (add 도중에 읽으면 일부 칸만 반영된 값이 보일 수 있다 -> 통계용으로만 사용)
+ */
+public class FenwickTree {
+
+    private final AtomicLongArray tree;
+
+    public FenwickTree(int size) {
+        this.tree = new AtomicLongArray(size + 1);
+    }
+
+    // 빈도 배열로 O(n)에 만든다.
+    public static FenwickTree of(long[] counts) {
+        FenwickTree fenwick = new FenwickTree(counts.length);
+        long[] values = new long[counts.length + 1];
+        System.arraycopy(counts, 0, values, 1, counts.length);
+        for (int i = 1; i < values.length; i++) {
+            int parent = i + (i & -i);
+            if (parent < values.length) {
+                values[parent] += values[i];
+            }
+            fenwick.tree.set(i, values[i]);
+        }
+        return fenwick;
+    }
+
+    public int size() {
+        return tree.length() - 1;
+    }
+
+    public void add(int index, long delta) {
+        for (int i = index + 1; i < tree.length(); i += i & -i) {
+            tree.addAndGet(i, delta);
+        }
+    }
+
+    // 0 ~ index 까지의 합 (index < 0 이면 0)
+    public long prefixSum(int index) {
+        long sum = 0;
+        for (int i = Math.min(index + 1, size()); i > 0; i -= i & -i) {
+            sum += tree.get(i);
+        }
+        return sum;
+    }
+
+    // from ~ to 까지의 합 (양 끝 포함)
+    public long rangeSum(int from, int to) {
+        if (from > to) {
+            return 0;
+        }
+        return prefixSum(to) - prefixSum(from - 1);
+    }
+}
@@ -0,0 +1,158 @@
+package study.datajpa.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.dto.RollupBucketDto;
+import study.datajpa.entity.Item;
+import study.datajpa.event.EntityChangeType;
+import study.datajpa.event.EntityChangedEvent;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Item 생성 건수 롤업 (분/시간/일 단위)
+ * 수집량 대시보드를 Item 테이블 범위 조회로 만들지 않고, Item이 저장될 때마다 메모리의 링 배열 카운트를 올린다.
+ * - 분 : item.rollup.minutes 칸, 시간 : item.rollup.hours 칸, 일 : item.rollup.days 칸
+ * - 시간 칸은 createdDate(LocalDateTime)의 벽시계 시각 기준이다. (일 단위도 서버 시간대의 0시부터)
+ * - 기동할 때 가장 긴 구간(days) 만큼 테이블에서 createdDate를 읽어서 채운다.
+ *   채우기 시작한 시각(cutoff) 이전 것은 테이블에서, 이후 것은 이벤트로 센다.
+ *   cutoff 직전에 만들어지고 테이블을 읽은 뒤에 커밋된 Item은 테이블에 없기 때문에 이벤트로 센다.
+ *   -> cutoff 전 item.rollup.backfill-overlap 구간은 테이블과 이벤트 양쪽에서 오기 때문에 id로 한 번만 센다.
+ *      (그 구간의 id만 들고 있는다. 그보다 오래 걸린 트랜잭션의 Item은 빠질 수 있다)
+ * - 삭제는 반영하지 않는다. (생성 건수)
+ */
+@Slf4j
+@Component
+public class ItemCreationRollup {
+
+    public enum Resolution {
+        MINUTE, HOUR, DAY
+    }
+
+    @PersistenceContext
+    private EntityManager em;
+
+    private final TransactionTemplate readTransaction;
+    private final Map<Resolution, TimeBucketRing> rings;
+    private final Duration overlap;
+    // 채우기 시작한 시각. 채우기 전(null)에 커밋된 Item은 테이블에서 읽기 때문에 이벤트는 무시한다.
+    private volatile LocalDateTime cutoff;
+    // [cutoff - overlap, cutoff) 에 만들어져서 이미 센 Item id
+    private final Set<String> overlapIds = ConcurrentHashMap.newKeySet();
+
+    public ItemCreationRollup(PlatformTransactionManager transactionManager,
+                              @Value("${item.rollup.minutes:1440}") int minutes,
+                              @Value("${item.rollup.hours:168}") int hours,
+                              @Value("${item.rollup.days:366}") int days,
+                              @Value("${item.rollup.backfill-overlap:5m}") Duration overlap) {
+        this.overlap = overlap;
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.readTransaction.setReadOnly(true);
+        this.rings = Map.of(
+                Resolution.MINUTE, new TimeBucketRing(60, minutes),
+                Resolution.HOUR, new TimeBucketRing(60 * 60, hours),
+                Resolution.DAY, new TimeBucketRing(24 * 60 * 60, days));
+    }
+
+    public List<RollupBucketDto> last(Resolution resolution, int n) {
+        TimeBucketRing ring = rings.get(resolution);
+        long now = epochSecond(LocalDateTime.now());
+        long[] counts = ring.last(now, n);
+        List<RollupBucketDto> buckets = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            buckets.add(new RollupBucketDto(LocalDateTime.ofEpochSecond(ring.startOf(now, n, i), 0, ZoneOffset.UTC), counts[i]));
+        }
+        return buckets;
+    }
+
+    // 조회할 수 있는 최대 칸 수
+    public int size(Resolution resolution) {
+        return rings.get(resolution).size();
+    }
+
+    public static Resolution resolution(String value) {
+        try {
+            return Resolution.valueOf(value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("resolution은 minute, hour, day 중 하나입니다. : " + value);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        // cutoff를 먼저 잡아야 테이블을 읽는 동안 커밋된 Item도 이벤트로 받는다.
+        LocalDateTime until = LocalDateTime.now();
+        LocalDateTime since = until.minusDays(rings.get(Resolution.DAY).size());
+        cutoff = until;
+        long count = readTransaction.execute(status -> {
+            try (Stream<Object[]> rows = em.createQuery(
+                            "select i.id, i.createdDate from Item i where i.createdDate >= :since and i.createdDate < :until", Object[].class)
+                    .setParameter("since", since)
+                    .setParameter("until", until)
+                    .getResultStream()) {
+                return rows.filter(row -> recordOnce((String) row[0], (LocalDateTime) row[1])).count();
+            }
+        });
+        log.info("item rollup backfill since={} items={}", since, count);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEntityChanged(EntityChangedEvent event) {
+        if (!event.isOf(Item.class) || event.getType() != EntityChangeType.PERSIST || cutoff == null) {
+            return;
+        }
+        Item item = (Item) event.getEntity();
+        if (item.getCreatedDate() == null) {
+            return;
+        }
+        if (!item.getCreatedDate().isBefore(cutoff)) {
+            record(item.getCreatedDate());
+        } else if (!item.getCreatedDate().isBefore(cutoff.minus(overlap))) {
+            // cutoff 전에 만들어졌지만 테이블을 읽은 뒤에 커밋됐을 수 있다.
+            recordOnce(item.getId(), item.getCreatedDate());
+        }
+    }
+
+    LocalDateTime cutoff() {
+        return cutoff;
+    }
+
+    // overlap 구간이면 id로 한 번만 센다.
+    private boolean recordOnce(String id, LocalDateTime createdDate) {
+        if (!createdDate.isBefore(cutoff.minus(overlap)) && !overlapIds.add(id)) {
+            return false;
+        }
+        record(createdDate);
+        return true;
+    }
+
+    private void record(LocalDateTime createdDate) {
+        long epochSecond = epochSecond(createdDate);
+        for (TimeBucketRing ring : rings.values()) {
+            ring.add(epochSecond, 1);
+        }
+    }
+
+    private static long epochSecond(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC);
+    }
+}
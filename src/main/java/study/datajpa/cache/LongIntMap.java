@@ -0,0 +1,102 @@
+package study.datajpa.cache;
+
+import java.util.Arrays;
+
+/**
+ * long -> int 맵 (오픈 어드레싱, 선형 탐사)
+ * Map<Long, Integer>는 항목마다 Long, Integer, Node 객체를 만든다. -> 멤버 전체를 들고 있을 때는 배열 두 개로 들고 있는다.
+ * 동기화하지 않는다. (쓰는 쪽에서 묶어서 사용)
+ */
+class LongIntMap {
+
+    static final int NO_VALUE = Integer.MIN_VALUE;
+
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    private long[] keys;
+    private int[] values;
+    private int size;
+
+    LongIntMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(16, expectedSize * 2 - 1)) << 1;
+        this.keys = new long[capacity];
+        this.values = new int[capacity];
+        Arrays.fill(keys, EMPTY);
+    }
+
+    int size() {
+        return size;
+    }
+
+    int get(long key) {
+        int slot = find(key);
+        return keys[slot] == key ? values[slot] : NO_VALUE;
+    }
+
+    // 이전 값 (없었으면 NO_VALUE)
+    int put(long key, int value) {
+        int slot = find(key);
+        if (keys[slot] == key) {
+            int old = values[slot];
+            values[slot] = value;
+            return old;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size * 3 > keys.length * 2) {
+            resize();
+        }
+        return NO_VALUE;
+    }
+
+    // 지운 값 (없었으면 NO_VALUE). 뒤쪽 항목을 당겨와서 탐사 순서가 끊기지 않게 한다.
+    int remove(long key) {
+        int slot = find(key);
+        if (keys[slot] != key) {
+            return NO_VALUE;
+        }
+        int old = values[slot];
+        int mask = keys.length - 1;
+        int hole = slot;
+        for (int i = (hole + 1) & mask; keys[i] != EMPTY; i = (i + 1) & mask) {
+            int home = hash(keys[i]) & mask;
+            // i의 원래 자리(home)가 (hole, i] 구간 밖이면 hole로 옮길 수 있다.
+            if (((i - home) & mask) >= ((i - hole) & mask)) {
+                keys[hole] = keys[i];
+                values[hole] = values[i];
+                hole = i;
+            }
+        }
+        keys[hole] = EMPTY;
+        size--;
+        return old;
+    }
+
+    private int find(long key) {
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (keys[slot] != EMPTY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void resize() {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = new int[oldValues.length * 2];
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                put(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
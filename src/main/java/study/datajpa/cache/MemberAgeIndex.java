@@ -0,0 +1,275 @@
+package study.datajpa.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.dto.AgeBucketDto;
+import study.datajpa.dto.AgeRankDto;
+import study.datajpa.entity.Member;
+import study.datajpa.event.BulkChangedEvent;
+import study.datajpa.event.EntityChangeType;
+import study.datajpa.event.EntityChangedEvent;
+import study.datajpa.event.MembersUpdatedEvent;
+
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * 나이별 멤버 수 인덱스 (나이 히스토그램, 나이 순위)
+ * MemberJpaRepository.totalCount(age)처럼 count 쿼리로 구하면 호출할 때마다 테이블을 읽는다.
+ * -> 0 ~ member.age-index.max-age 나이별 멤버 수를 펜윅 트리에 들고 있다가 Member 변경 이벤트로 갱신한다.
+ * - 구간 합(히스토그램 한 칸), 순위 : O(log maxAge)
+ * - 수정 이벤트에는 예전 나이가 없기 때문에 memberNo -> 나이를 같이 들고 있는다. (LongIntMap, 박싱 없이)
+ * - 범위를 벗어나는 나이는 양 끝 칸에 넣는다.
+ * - 벌크 연산은 바뀐 row를 모르니 테이블에서 다시 만든다.
+ *   조회하는 쪽에서 만들지 않고 백그라운드 스레드 하나에서 만든다. (벌크 이벤트가 몰려도 다시 만드는 건 하나씩, 밀린 건 한 번으로 합친다)
+ *   다시 만드는 동안에는 예전 인덱스로 응답하고, 들어온 변경은 새 인덱스에도 다시 적용한 다음 바꿔 끼운다.
+ *   다시 만드는 중에 벌크 이벤트가 또 오면(generation이 바뀌면) 한 번 더 만든다.
+ *   쓰기 지연 버퍼(MembersUpdatedEvent)는 바뀐 memberNo만 다시 읽는다.
+ * - 갱신은 this로 묶는다. 히스토그램은 잠그지 않고 읽는다. (칸마다 AtomicLongArray 값)
+ */
+@Slf4j
+@Component
+public class MemberAgeIndex {
+
+    private static final int REMOVED = Integer.MIN_VALUE;
+
+    @PersistenceContext
+    private EntityManager em;
+
+    private final TransactionTemplate readTransaction;
+    private final int maxAge;
+    private final ExecutorService rebuilder = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "member-age-index");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean rebuildScheduled = new AtomicBoolean();
+    private final AtomicLong generation = new AtomicLong();
+
+    // 아래 셋은 this로 묶어서 바꾼다.
+    private LongIntMap ages = new LongIntMap(16);
+    private volatile FenwickTree counts;
+    // 다시 만드는 중에 들어온 변경 (새 인덱스에 다시 적용)
+    private List<Change> replay;
+
+    private volatile boolean built;
+
+    public MemberAgeIndex(PlatformTransactionManager transactionManager,
+                          @Value("${member.age-index.max-age:200}") int maxAge) {
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.readTransaction.setReadOnly(true);
+        this.maxAge = maxAge;
+        this.counts = new FenwickTree(maxAge + 1);
+    }
+
+    /**
+     * bucketSize 살 단위 히스토그램 (0 ~ maxAge)
+     */
+    public List<AgeBucketDto> histogram(int bucketSize) {
+        if (bucketSize < 1) {
+            throw new IllegalArgumentException("bucketSize는 1 이상이어야 합니다.");
+        }
+        ensureBuilt();
+        FenwickTree counts = this.counts;
+        List<AgeBucketDto> buckets = new ArrayList<>();
+        for (int from = 0; from <= maxAge; from += bucketSize) {
+            int to = Math.min(from + bucketSize - 1, maxAge);
+            buckets.add(new AgeBucketDto(from, to, counts.rangeSum(from, to)));
+        }
+        return buckets;
+    }
+
+    public Optional<AgeRankDto> rank(Long memberNo) {
+        ensureBuilt();
+        int age;
+        FenwickTree counts;
+        synchronized (this) {
+            age = ages.get(memberNo);
+            counts = this.counts;
+        }
+        if (age == LongIntMap.NO_VALUE) {
+            return Optional.empty();
+        }
+        int index = clamp(age);
+        long younger = counts.prefixSum(index - 1);
+        long sameAge = counts.rangeSum(index, index);
+        return Optional.of(new AgeRankDto(memberNo, age, younger, sameAge, counts.prefixSum(maxAge)));
+    }
+
+    /**
+     * 테이블에서 다시 만든다. 읽는 동안은 잠그지 않고 마지막에 바꿔 끼울 때만 잠근다.
+     */
+    public void rebuild() {
+        synchronized (rebuilder) {
+            long start = generation.get();
+            synchronized (this) {
+                replay = new ArrayList<>();
+            }
+            LongIntMap newAges;
+            long[] frequencies = new long[maxAge + 1];
+            try {
+                newAges = readTransaction.execute(status -> {
+                    LongIntMap loaded = new LongIntMap(1024);
+                    try (Stream<Object[]> rows = em.createQuery("select m.memberNo, m.age from Member m", Object[].class)
+                            .getResultStream()) {
+                        rows.forEach(row -> {
+                            int age = (Integer) row[1];
+                            loaded.put((Long) row[0], age);
+                            frequencies[clamp(age)]++;
+                        });
+                    }
+                    return loaded;
+                });
+            } catch (RuntimeException e) {
+                synchronized (this) {
+                    replay = null;
+                }
+                throw e;
+            }
+
+            synchronized (this) {
+                ages = newAges;
+                counts = FenwickTree.of(frequencies);
+                for (Change change : replay) {
+                    if (change.age == REMOVED) {
+                        applyRemove(change.memberNo);
+                    } else {
+                        applyUpdate(change.memberNo, change.age);
+                    }
+                }
+                replay = null;
+            }
+            built = true;
+            if (generation.get() != start) {
+                scheduleRebuild();
+            }
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        rebuild();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEntityChanged(EntityChangedEvent event) {
+        if (!event.isOf(Member.class)) {
+            return;
+        }
+        Member member = (Member) event.getEntity();
+        if (event.getType() == EntityChangeType.REMOVE) {
+            remove(member.getMemberNo());
+        } else {
+            update(member.getMemberNo(), member.getAge());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBulkChanged(BulkChangedEvent event) {
+        if (event.getEntityType() == Member.class) {
+            generation.incrementAndGet();
+            scheduleRebuild();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMembersUpdated(MembersUpdatedEvent event) {
+        if (event.getMemberNos().isEmpty()) {
+            return;
+        }
+        List<Object[]> rows = readTransaction.execute(status -> em.createQuery(
+                        "select m.memberNo, m.age from Member m where m.memberNo in :memberNos", Object[].class)
+                .setParameter("memberNos", event.getMemberNos())
+                .getResultList());
+        for (Object[] row : rows) {
+            update((Long) row[0], (Integer) row[1]);
+        }
+    }
+
+    private synchronized void update(long memberNo, int age) {
+        applyUpdate(memberNo, age);
+        if (replay != null) {
+            replay.add(new Change(memberNo, age));
+        }
+    }
+
+    private synchronized void remove(long memberNo) {
+        applyRemove(memberNo);
+        if (replay != null) {
+            replay.add(new Change(memberNo, REMOVED));
+        }
+    }
+
+    private void applyUpdate(long memberNo, int age) {
+        int old = ages.put(memberNo, age);
+        if (old != LongIntMap.NO_VALUE) {
+            counts.add(clamp(old), -1);
+        }
+        counts.add(clamp(age), 1);
+    }
+
+    private void applyRemove(long memberNo) {
+        int old = ages.remove(memberNo);
+        if (old != LongIntMap.NO_VALUE) {
+            counts.add(clamp(old), -1);
+        }
+    }
+
+    private void scheduleRebuild() {
+        if (!rebuildScheduled.compareAndSet(false, true)) {
+            return;
+        }
+        rebuilder.execute(() -> {
+            rebuildScheduled.set(false);
+            try {
+                rebuild();
+            } catch (RuntimeException e) {
+                log.warn("member age index rebuild failed", e);
+            }
+        });
+    }
+
+    // 처음 한 번만 조회하는 쪽에서 만든다. 그 다음부터는 백그라운드에서 만드는 동안 예전 인덱스로 응답한다.
+    private void ensureBuilt() {
+        if (!built) {
+            rebuild();
+        }
+    }
+
+    private int clamp(int age) {
+        return Math.max(0, Math.min(age, maxAge));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuilder.shutdownNow();
+    }
+
+    private static final class Change {
+
+        private final long memberNo;
+        private final int age;
+
+        private Change(long memberNo, int age) {
+            this.memberNo = memberNo;
+            this.age = age;
+        }
+    }
+}
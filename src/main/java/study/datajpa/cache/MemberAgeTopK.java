@@ -0,0 +1,167 @@
+package study.datajpa.cache;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.dto.MemberAgeDto;
+import study.datajpa.entity.Member;
+import study.datajpa.event.BulkChangedEvent;
+import study.datajpa.event.EntityChangeType;
+import study.datajpa.event.EntityChangedEvent;
+import study.datajpa.event.MembersUpdatedEvent;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 나이 많은 순 상위 K명 (findTop3ByOrderByAgeDesc 대신)
+ * 매번 정렬 쿼리를 날리지 않고 메모리에 상위 멤버를 들고 있다가 Member 변경 이벤트로 갱신한다.
+ * - 조회 : 만들어둔 불변 리스트를 그대로 반환한다. O(K)
+ * - 정렬 : 나이 내림차순, 같으면 memberNo 오름차순
+ * - 삭제되거나 나이가 줄어든 멤버 자리를 채울 수 있도록 K의 2배(capacity)까지 들고 있는다.
+ *   가지고 있는 멤버들은 항상 "전체 순위의 앞부분"이다. -> 마지막 멤버보다 뒤에 오는 멤버는 순위를 알 수 없으니 버린다.
+ *   그러다 K명보다 적어지면 테이블에서 다시 읽는다.
+ * - 벌크 연산(bulkAgePlus 등), 쓰기 지연 버퍼(MembersUpdatedEvent)는 바뀐 값을 모르니 다음 조회 때 다시 읽는다.
+ * - 기동할 때 테이블에서 한 번 읽어둔다.
+ */
+@Component
+public class MemberAgeTopK {
+
+    private static final Comparator<MemberAgeDto> ORDER = Comparator.comparingInt(MemberAgeDto::getAge).reversed()
+            .thenComparing(MemberAgeDto::getMemberNo);
+
+    @PersistenceContext
+    private EntityManager em;
+
+    private final TransactionTemplate readTransaction;
+    private final int k;
+    private final int capacity;
+
+    private final TreeSet<MemberAgeDto> entries = new TreeSet<>(ORDER);
+    private final Map<Long, MemberAgeDto> byMemberNo = new HashMap<>();
+    // 테이블의 멤버가 전부 들어있는지 (capacity보다 적게 읽혔으면 전부)
+    private boolean complete;
+    private volatile boolean dirty = true;
+    // 다시 읽어야 하는 변경이 생길 때마다 증가. 다시 읽는 도중에 바뀌었으면 dirty를 유지한다.
+    private final AtomicLong generation = new AtomicLong();
+    private volatile List<MemberAgeDto> snapshot = List.of();
+
+    public MemberAgeTopK(PlatformTransactionManager transactionManager,
+                         @Value("${member.top-age.k:3}") int k) {
+        // 호출한 쪽 트랜잭션의 커밋 안된 변경이 섞이지 않도록 별도 트랜잭션에서 읽는다.
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.readTransaction.setReadOnly(true);
+        this.k = k;
+        this.capacity = k * 2;
+    }
+
+    public List<MemberAgeDto> top() {
+        if (dirty) {
+            rebuild();
+        }
+        List<MemberAgeDto> current = snapshot;
+        return current.size() <= k ? current : current.subList(0, k);
+    }
+
+    public synchronized void rebuild() {
+        long start = generation.get();
+        List<MemberAgeDto> rows = readTransaction.execute(status -> em.createQuery(
+                        "select new study.datajpa.dto.MemberAgeDto(m.memberNo, m.username, m.age)" +
+                                " from Member m order by m.age desc, m.memberNo asc", MemberAgeDto.class)
+                .setMaxResults(capacity)
+                .getResultList());
+        entries.clear();
+        byMemberNo.clear();
+        rows.forEach(this::add);
+        complete = rows.size() < capacity;
+        dirty = generation.get() != start;
+        publish();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        rebuild();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEntityChanged(EntityChangedEvent event) {
+        if (!event.isOf(Member.class)) {
+            return;
+        }
+        Member member = (Member) event.getEntity();
+        if (event.getType() == EntityChangeType.REMOVE) {
+            remove(member.getMemberNo());
+        } else {
+            update(new MemberAgeDto(member.getMemberNo(), member.getUsername(), member.getAge()));
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBulkChanged(BulkChangedEvent event) {
+        if (event.getEntityType() == Member.class) {
+            markDirty();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMembersUpdated(MembersUpdatedEvent event) {
+        markDirty();
+    }
+
+    private void markDirty() {
+        generation.incrementAndGet();
+        dirty = true;
+    }
+
+    private synchronized void update(MemberAgeDto member) {
+        removeEntry(member.getMemberNo());
+        if (complete || (!entries.isEmpty() && ORDER.compare(member, entries.last()) < 0)) {
+            add(member);
+            if (entries.size() > capacity) {
+                byMemberNo.remove(entries.pollLast().getMemberNo());
+                complete = false;
+            }
+        }
+        afterChange();
+    }
+
+    private synchronized void remove(Long memberNo) {
+        removeEntry(memberNo);
+        afterChange();
+    }
+
+    private void afterChange() {
+        if (!complete && entries.size() < k) {
+            markDirty();
+        }
+        publish();
+    }
+
+    private void add(MemberAgeDto member) {
+        entries.add(member);
+        byMemberNo.put(member.getMemberNo(), member);
+    }
+
+    private void removeEntry(Long memberNo) {
+        MemberAgeDto old = byMemberNo.remove(memberNo);
+        if (old != null) {
+            entries.remove(old);
+        }
+    }
+
+    private void publish() {
+        snapshot = List.copyOf(entries);
+    }
+}
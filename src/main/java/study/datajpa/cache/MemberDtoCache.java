@@ -0,0 +1,92 @@
+package study.datajpa.cache;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import study.datajpa.dto.CachedMemberDto;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.event.BulkChangedEvent;
+import study.datajpa.event.EntityChangedEvent;
+import study.datajpa.event.MembersUpdatedEvent;
+import study.datajpa.repository.MemberRepository;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * GET /members/{id} 용 MemberDto 캐시
+ * - Caffeine : 크기 제한 + W-TinyLFU 방식으로 자주 조회되는 멤버만 남긴다.
+ * - get(id, loader) : 같은 id로 동시에 캐시 미스가 나도 조회는 한 번만 하고 나머지는 그 결과를 기다린다.
+ * - 서로 다른 id의 캐시 미스는 BatchingLoader가 모아서 in 쿼리 한 번으로 조회한다.
+ *   (AsyncCache를 쓰기 때문에 배치를 기다리는 동안 캐시 락을 잡고 있지 않는다)
+ * - Member/Team이 커밋되면 해당 값을 캐시에서 지운다. (벌크성 쿼리는 어떤 row가 바뀌었는지 모르니 전체 삭제)
+ */
+@Component
+public class MemberDtoCache {
+
+    private final AsyncCache<Long, CachedMemberDto> cache;
+    private final BatchingLoader<Long, CachedMemberDto> loader;
+
+    public MemberDtoCache(MemberRepository memberRepository,
+                          @Value("${member.cache.maximum-size:10000}") long maximumSize,
+                          @Value("${member.cache.expire-after-write:10m}") Duration expireAfterWrite,
+                          @Value("${member.collapse.window:2ms}") Duration window,
+                          @Value("${member.collapse.max-batch-size:100}") int maxBatchSize,
+                          @Value("${member.collapse.max-concurrent-batches:4}") int maxConcurrentBatches) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .buildAsync();
+        this.loader = new BatchingLoader<>("member-dto-loader",
+                ids -> memberRepository.findCachedMemberDtoByIdIn(ids).stream()
+                        .collect(Collectors.toMap(member -> member.getDto().getId(), Function.identity())),
+                window, maxBatchSize, maxConcurrentBatches);
+    }
+
+    // 없는 멤버는 캐시하지 않는다. (null로 완료되면 Caffeine이 값을 남기지 않음)
+    public Optional<CachedMemberDto> get(Long id) {
+        return Optional.ofNullable(cache.get(id, (key, executor) -> loader.load(key)).join());
+    }
+
+    public void evict(Long id) {
+        cache.synchronous().invalidate(id);
+    }
+
+    public void evictAll() {
+        cache.synchronous().invalidateAll();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEntityChanged(EntityChangedEvent event) {
+        if (event.isOf(Member.class)) {
+            evict(((Member) event.getEntity()).getMemberNo());
+        } else if (event.isOf(Team.class)) {
+            // 팀 이름이 바뀌면 그 팀 멤버들의 teamName이 다 바뀐다.
+            evictAll();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBulkChanged(BulkChangedEvent event) {
+        if (event.getEntityType() == Member.class || event.getEntityType() == Team.class) {
+            evictAll();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMembersUpdated(MembersUpdatedEvent event) {
+        cache.synchronous().invalidateAll(event.getMemberNos());
+    }
+
+    @PreDestroy
+    public void close() {
+        loader.close();
+    }
+}
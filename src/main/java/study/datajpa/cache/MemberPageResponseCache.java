@@ -0,0 +1,122 @@
+package study.datajpa.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import study.datajpa.event.MemberChangeCounter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.time.Duration;
+
+/**
+ * GET /members 앞쪽 페이지의 응답 캐시
+ * 목록 트래픽 대부분이 앞쪽 몇 페이지에 몰리고 내용은 거의 바뀌지 않는다.
+ * -> 직렬화가 끝난 JSON 바이트를 (포맷 + 정규화한 Pageable) 키로 저장해두고 그대로 내려준다. (DB 조회, Jackson 직렬화 없음)
+ * - member.page-cache.off-heap=true 이면 다이렉트 ByteBuffer에 저장해서 GC 대상 힙을 줄인다.
+ * - 무효화 : 값을 만들기 전에 MemberChangeCounter 값을 버전으로 잡아두고, 조회할 때 버전이 다르면 미스로 처리한다.
+ *   렌더링 중에 다른 트랜잭션이 커밋되어도 옛날 버전으로 저장되기 때문에 바로 다음 요청에서 다시 만든다.
+ *   (버전이 지난 값은 다음 미스 때 덮어쓰거나 크기 제한으로 밀려난다)
+ * - member.page-cache.max-page 보다 뒤쪽 페이지는 캐시하지 않는다.
+ */
+@Component
+public class MemberPageResponseCache {
+
+    private final MemberChangeCounter memberChangeCounter;
+    private final Cache<String, Entry> cache;
+    private final int maxPage;
+    private final boolean offHeap;
+    private final Counter hitCounter;
+    private final Counter missCounter;
+
+    public MemberPageResponseCache(MemberChangeCounter memberChangeCounter, MeterRegistry registry,
+                                   @Value("${member.page-cache.maximum-size:200}") long maximumSize,
+                                   @Value("${member.page-cache.expire-after-write:10m}") Duration expireAfterWrite,
+                                   @Value("${member.page-cache.max-page:5}") int maxPage,
+                                   @Value("${member.page-cache.off-heap:false}") boolean offHeap) {
+        this.memberChangeCounter = memberChangeCounter;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(expireAfterWrite)
+                .build();
+        this.maxPage = maxPage;
+        this.offHeap = offHeap;
+        this.hitCounter = Counter.builder("member.page.cache").tag("result", "hit").register(registry);
+        this.missCounter = Counter.builder("member.page.cache").tag("result", "miss").register(registry);
+    }
+
+    @FunctionalInterface
+    public interface Renderer {
+        void render(OutputStream out) throws IOException;
+    }
+
+    /**
+     * 캐시에 있으면 저장된 바이트를 그대로 쓰고, 없으면 renderer로 만들어서 저장한 뒤 쓴다.
+     */
+    public void write(String format, Pageable pageable, OutputStream out, Renderer renderer) throws IOException {
+        if (pageable.isUnpaged() || pageable.getPageNumber() >= maxPage) {
+            renderer.render(out);
+            return;
+        }
+
+        String key = key(format, pageable);
+        long version = memberChangeCounter.current();
+        Entry entry = cache.getIfPresent(key);
+        if (entry != null && entry.version == version) {
+            hitCounter.increment();
+            entry.writeTo(out);
+            return;
+        }
+
+        missCounter.increment();
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        renderer.render(buffer);
+        byte[] bytes = buffer.toByteArray();
+        cache.put(key, new Entry(version, offHeap ? ByteBuffer.allocateDirect(bytes.length).put(bytes).flip() : ByteBuffer.wrap(bytes)));
+        out.write(bytes);
+    }
+
+    public void evictAll() {
+        cache.invalidateAll();
+    }
+
+    // page=1&size=5 와 page=1&size=5&sort= 가 같은 키가 되도록 정렬 조건까지 풀어서 만든다.
+    static String key(String format, Pageable pageable) {
+        StringBuilder key = new StringBuilder(format)
+                .append(':').append(pageable.getPageNumber())
+                .append(':').append(pageable.getPageSize());
+        for (Sort.Order order : pageable.getSort()) {
+            key.append(':').append(order.getProperty())
+                    .append(',').append(order.getDirection())
+                    .append(',').append(order.isIgnoreCase())
+                    .append(',').append(order.getNullHandling());
+        }
+        return key.toString();
+    }
+
+    @RequiredArgsConstructor
+    private static class Entry {
+
+        private final long version;
+        private final ByteBuffer body;
+
+        // 여러 요청이 동시에 쓰기 때문에 position을 건드리지 않도록 duplicate()로 쓴다.
+        void writeTo(OutputStream out) throws IOException {
+            ByteBuffer view = body.duplicate();
+            if (view.hasArray()) {
+                out.write(view.array(), view.arrayOffset() + view.position(), view.remaining());
+            } else {
+                Channels.newChannel(out).write(view);
+            }
+        }
+    }
+}
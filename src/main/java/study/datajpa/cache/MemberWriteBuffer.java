@@ -0,0 +1,367 @@
+package study.datajpa.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.dto.MemberDto;
+import study.datajpa.event.MembersUpdatedEvent;
+
+import javax.annotation.PreDestroy;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Member 필드 수정 쓰기 지연(write-behind) 버퍼
+ * 같은 멤버의 username/age를 1초에도 여러 번 바꾸는 경우 매번 트랜잭션 + update를 하지 않고
+ * memberNo별로 마지막 값(나이 증감은 합산)만 남겨두었다가 flushInterval마다 JDBC 배치 update로 반영한다.
+ *
+ * 내구성
+ * - 애플리케이션이 정상 종료되면 남은 값을 flush 한다.
+ *   종료가 시작된 뒤(closed)에 들어온 변경은 백그라운드 스레드가 없으니 호출한 스레드에서 바로 flush 한다. (실패하면 예외)
+ * - 비정상 종료되면 아직 반영 못한 변경(최대 maxPending명)은 잃어버릴 수 있다.
+ *   -> 잃어버리면 안되는 변경은 이 버퍼를 쓰지 말고 Member.changeUsername()으로 바로 반영해야 한다.
+ * - flush가 실패하면 가져갔던 값을 다시 버퍼에 합쳐두고 다음 flush에서 재시도한다.
+ * - 버퍼에 있는 멤버(대기 + flush 중)가 maxPending명이 되면 새 멤버의 변경은 자리가 날 때까지 offerTimeout 동안 기다리고,
+ *   그래도 자리가 없으면(DB 장애 등) 버퍼에 넣지 않고 IllegalStateException을 던진다. (예외가 나면 반영 안된 것)
+ *   flush는 항상 백그라운드 스레드가 한다. 쓰는 쪽에서 flush 예외를 받는 일은 없다.
+ *
+ * 조회
+ * - flush 중인 값(inflight)은 커밋되고 캐시가 지워질 때까지 남겨둔다. -> 그 사이에도 반영 전 값이 보인다.
+ *   나이 증감은 flush 트랜잭션 안에서 절대값으로 바꿔두기 때문에 커밋 전후 어느 쪽에서 읽어도 두 번 더해지지 않는다.
+ * - 반영 전 값이 보이는 곳은 GET /members/{id}의 username(overlay)과 age()를 직접 호출하는 곳뿐이다.
+ *   목록, 페이지, 배치, 검색 조회는 커밋된 값을 보여준다. (최대 flushInterval 늦게 반영됨)
+ *
+ * JDBC로 바로 반영하기 때문에 엔티티 리스너 대신 MembersUpdatedEvent를 발행한다.
+ */
+@Slf4j
+@Component
+public class MemberWriteBuffer {
+
+    private static final int SELECT_CHUNK_SIZE = 1000;
+
+    // pending, inflight 교체(flush)와 읽기/쓰기를 나누는 락. 읽기/쓰기끼리는 동시에 가능
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile Map<Long, PendingUpdate> pending = new ConcurrentHashMap<>();
+    private volatile Map<Long, PendingUpdate> inflight = Map.of();
+    // 새 멤버를 넣을 때 크기 확인 + 넣기를 한 번에 하기 위한 모니터
+    private final Object admission = new Object();
+    // flush가 끝날 때마다 증가 (자리를 기다리는 쓰기 스레드를 깨운다)
+    private final Object flushed = new Object();
+    private long flushGeneration;
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private volatile boolean closed;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher publisher;
+    private final int maxPending;
+    private final Duration offerTimeout;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "member-write-buffer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public MemberWriteBuffer(JdbcTemplate jdbcTemplate,
+                             PlatformTransactionManager transactionManager,
+                             ApplicationEventPublisher publisher,
+                             @Value("${member.write-buffer.flush-interval:1s}") Duration flushInterval,
+                             @Value("${member.write-buffer.max-pending:10000}") int maxPending,
+                             @Value("${member.write-buffer.offer-timeout:1s}") Duration offerTimeout) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.publisher = publisher;
+        this.maxPending = maxPending;
+        this.offerTimeout = offerTimeout;
+        long interval = flushInterval.toMillis();
+        scheduler.scheduleWithFixedDelay(this::flushQuietly, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    public void changeUsername(Long memberNo, String username) {
+        merge(memberNo, new PendingUpdate(username, null, 0));
+    }
+
+    public void changeAge(Long memberNo, int age) {
+        merge(memberNo, new PendingUpdate(null, age, 0));
+    }
+
+    public void addAge(Long memberNo, int delta) {
+        merge(memberNo, new PendingUpdate(null, null, delta));
+    }
+
+    public boolean hasPending(Long memberNo) {
+        return effective(memberNo) != null;
+    }
+
+    /**
+     * 아직 반영되지 않은 username을 덮은 새 DTO (대기 중인 값이 없으면 그대로 반환)
+     */
+    public MemberDto overlay(MemberDto dto) {
+        PendingUpdate update = effective(dto.getId());
+        if (update == null || update.username == null) {
+            return dto;
+        }
+        return new MemberDto(dto.getId(), update.username, dto.getTeamName());
+    }
+
+    /**
+     * 아직 반영되지 않은 나이를 반영한 값
+     */
+    public int age(Long memberNo, int committedAge) {
+        PendingUpdate update = effective(memberNo);
+        if (update == null) {
+            return committedAge;
+        }
+        return (update.age != null ? update.age : committedAge) + update.ageDelta;
+    }
+
+    // flush 중인 값 다음에 대기 중인 값을 적용한 결과
+    private PendingUpdate effective(Long memberNo) {
+        lock.readLock().lock();
+        try {
+            PendingUpdate flushing = inflight.get(memberNo);
+            PendingUpdate queued = pending.get(memberNo);
+            if (flushing == null) {
+                return queued;
+            }
+            return queued == null ? flushing : flushing.then(queued);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void merge(Long memberNo, PendingUpdate update) {
+        long deadline = System.nanoTime() + offerTimeout.toNanos();
+        while (true) {
+            long generation;
+            synchronized (flushed) {
+                generation = flushGeneration;
+            }
+            if (tryMerge(memberNo, update)) {
+                // 종료 중이면 shutdown()의 마지막 flush가 이미 지나갔을 수 있다.
+                if (closed) {
+                    flush();
+                }
+                return;
+            }
+            if (closed) {
+                flush();
+                continue;
+            }
+            requestFlush();
+            if (!awaitFlush(generation, deadline)) {
+                throw new IllegalStateException("쓰기 지연 버퍼가 가득 찼습니다. maxPending=" + maxPending);
+            }
+        }
+    }
+
+    private boolean tryMerge(Long memberNo, PendingUpdate update) {
+        boolean merged;
+        lock.readLock().lock();
+        try {
+            if (pending.containsKey(memberNo) || inflight.containsKey(memberNo)) {
+                pending.merge(memberNo, update, PendingUpdate::then);
+                merged = true;
+            } else {
+                synchronized (admission) {
+                    merged = pending.size() + inflight.size() < maxPending;
+                    if (merged) {
+                        pending.merge(memberNo, update, PendingUpdate::then);
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        // 반쯤 찼으면 주기를 기다리지 않고 flush 한다.
+        if (merged && !closed && pending.size() >= Math.max(1, maxPending / 2)) {
+            requestFlush();
+        }
+        return merged;
+    }
+
+    private void requestFlush() {
+        if (flushRequested.compareAndSet(false, true)) {
+            try {
+                scheduler.execute(() -> {
+                    flushRequested.set(false);
+                    flushQuietly();
+                });
+            } catch (RejectedExecutionException e) {
+                // 종료 중 : 플래그를 되돌려야 다음 요청이 막히지 않는다. (merge가 closed를 보고 직접 flush)
+                flushRequested.set(false);
+            }
+        }
+    }
+
+    private boolean awaitFlush(long generation, long deadline) {
+        synchronized (flushed) {
+            while (flushGeneration == generation) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return false;
+                }
+                try {
+                    TimeUnit.NANOSECONDS.timedWait(flushed, remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    public synchronized void flush() {
+        Map<Long, PendingUpdate> batch;
+        lock.writeLock().lock();
+        try {
+            if (pending.isEmpty()) {
+                return;
+            }
+            batch = pending;
+            inflight = new ConcurrentHashMap<>(batch);
+            pending = new ConcurrentHashMap<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> write(batch));
+        } catch (RuntimeException e) {
+            // 롤백되었으니 가져간 값을 다시 넣는다. (그 사이에 들어온 값이 더 최신)
+            lock.writeLock().lock();
+            try {
+                batch.forEach((memberNo, update) -> pending.merge(memberNo, update, (newer, older) -> older.then(newer)));
+                inflight = Map.of();
+            } finally {
+                lock.writeLock().unlock();
+            }
+            signalFlushed();
+            throw e;
+        }
+
+        // 커밋된 뒤에는 다시 넣으면 안된다. 리스너(캐시 삭제 등)가 끝난 다음에 inflight를 비운다.
+        try {
+            publisher.publishEvent(new MembersUpdatedEvent(batch.keySet()));
+        } finally {
+            lock.writeLock().lock();
+            try {
+                inflight = Map.of();
+            } finally {
+                lock.writeLock().unlock();
+            }
+            signalFlushed();
+        }
+        log.debug("member write buffer flushed. members={}", batch.size());
+    }
+
+    private void signalFlushed() {
+        synchronized (flushed) {
+            flushGeneration++;
+            flushed.notifyAll();
+        }
+    }
+
+    private void write(Map<Long, PendingUpdate> batch) {
+        List<Object[]> usernames = new ArrayList<>();
+        List<Object[]> ages = new ArrayList<>();
+        List<Long> deltaMemberNos = new ArrayList<>();
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        batch.forEach((memberNo, update) -> {
+            if (update.username != null) {
+                usernames.add(new Object[]{update.username, now, memberNo});
+            }
+            if (update.age != null) {
+                ages.add(new Object[]{update.age + update.ageDelta, now, memberNo});
+            } else if (update.ageDelta != 0) {
+                deltaMemberNos.add(memberNo);
+            }
+        });
+
+        // 증감은 현재 나이를 잠그고 읽어서 절대값으로 바꾼다.
+        // inflight도 절대값으로 바꿔두면 커밋 후 캐시가 지워지기 전/후 어느 쪽 나이를 기준으로 읽어도 결과가 같다.
+        for (int from = 0; from < deltaMemberNos.size(); from += SELECT_CHUNK_SIZE) {
+            List<Long> chunk = deltaMemberNos.subList(from, Math.min(from + SELECT_CHUNK_SIZE, deltaMemberNos.size()));
+            namedJdbcTemplate.query("select member_id, age from member where member_id in (:memberNos) for update",
+                    new MapSqlParameterSource("memberNos", chunk),
+                    (RowCallbackHandler) rs -> {
+                        long memberNo = rs.getLong("member_id");
+                        PendingUpdate update = batch.get(memberNo);
+                        int age = rs.getInt("age") + update.ageDelta;
+                        ages.add(new Object[]{age, now, memberNo});
+                        inflight.put(memberNo, new PendingUpdate(update.username, age, 0));
+                    });
+        }
+
+        batchUpdate("update member set username = ?, last_modified_date = ? where member_id = ?", usernames);
+        batchUpdate("update member set age = ?, last_modified_date = ? where member_id = ?", ages);
+    }
+
+    private void batchUpdate(String sql, List<Object[]> args) {
+        if (!args.isEmpty()) {
+            jdbcTemplate.batchUpdate(sql, args);
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.warn("member write buffer flush failed. pending={}", pending.size(), e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        closed = true;
+        scheduler.shutdown();
+        flush();
+    }
+
+    /**
+     * 불변 객체 (ConcurrentHashMap.merge 안에서 새로 만들어서 교체한다)
+     * username, age : 마지막으로 설정한 값 (null이면 변경 없음)
+     * ageDelta : age 이후에 더해진 증감
+     */
+    private static class PendingUpdate {
+        private final String username;
+        private final Integer age;
+        private final int ageDelta;
+
+        private PendingUpdate(String username, Integer age, int ageDelta) {
+            this.username = username;
+            this.age = age;
+            this.ageDelta = ageDelta;
+        }
+
+        // this 다음에 next가 적용된 결과
+        private PendingUpdate then(PendingUpdate next) {
+            String username = next.username != null ? next.username : this.username;
+            if (next.age != null) {
+                return new PendingUpdate(username, next.age, next.ageDelta);
+            }
+            return new PendingUpdate(username, this.age, this.ageDelta + next.ageDelta);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package study.datajpa.cache;
+
+import java.util.Arrays;
+
+/**
+ * 고정 폭(widthSeconds) 시간 칸별 카운트를 size칸 링 배열에 들고 있다.
+ * 칸마다 어느 시간 칸의 값인지(buckets)를 같이 저장해서, 한 바퀴 돌아 다른 시간 칸이 들어오면 0부터 다시 센다.
+ * 가장 최근 칸보다 size칸 이상 오래된 값은 버린다.
+ */
+public class TimeBucketRing {
+
+    private final long widthSeconds;
+    private final long[] counts;
+    private final long[] buckets;
+    private long latest = Long.MIN_VALUE;
+
+    public TimeBucketRing(long widthSeconds, int size) {
+        this.widthSeconds = widthSeconds;
+        this.counts = new long[size];
+        this.buckets = new long[size];
+        Arrays.fill(buckets, Long.MIN_VALUE);
+    }
+
+    public int size() {
+        return counts.length;
+    }
+
+    public long widthSeconds() {
+        return widthSeconds;
+    }
+
+    public synchronized void add(long epochSecond, long delta) {
+        long bucket = Math.floorDiv(epochSecond, widthSeconds);
+        if (latest != Long.MIN_VALUE && bucket <= latest - counts.length) {
+            return;
+        }
+        latest = Math.max(latest, bucket);
+        int slot = (int) Math.floorMod(bucket, (long) counts.length);
+        if (buckets[slot] != bucket) {
+            buckets[slot] = bucket;
+            counts[slot] = 0;
+        }
+        counts[slot] += delta;
+    }
+
+    /**
+     * epochSecond가 속한 칸까지 최근 n칸의 카운트 (오래된 칸부터)
+     */
+    public synchronized long[] last(long epochSecond, int n) {
+        if (n < 1 || n > counts.length) {
+            throw new IllegalArgumentException("1 ~ " + counts.length + "칸까지 조회할 수 있습니다.");
+        }
+        long end = Math.floorDiv(epochSecond, widthSeconds);
+        long[] result = new long[n];
+        for (int i = 0; i < n; i++) {
+            long bucket = end - n + 1 + i;
+            int slot = (int) Math.floorMod(bucket, (long) counts.length);
+            result[i] = buckets[slot] == bucket ? counts[slot] : 0;
+        }
+        return result;
+    }
+
+    // 칸 번호 -> 칸 시작 시각(epoch second)
+    public long startOf(long epochSecond, int n, int index) {
+        return (Math.floorDiv(epochSecond, widthSeconds) - n + 1 + index) * widthSeconds;
+    }
+}
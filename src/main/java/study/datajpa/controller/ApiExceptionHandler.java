@@ -0,0 +1,42 @@
+package study.datajpa.controller;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
+
+import java.util.Map;
+
+/**
+ * 컨트롤러가 직접 던진 예외만 상태 코드로 바꾼다. (그 외 예외는 스프링 기본 처리 그대로)
+ * - InvalidRequestException : 400 {"message":"ids, usernames 중 하나만 보내야 합니다."}
+ * - MemberNotFoundException : 404 (경로 변수 컨버터(UsernameOnlyDtoConverter)에서 던진 것 포함)
+ */
+@RestControllerAdvice
+public class ApiExceptionHandler {
+
+    @ExceptionHandler(InvalidRequestException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public Map<String, String> badRequest(InvalidRequestException e) {
+        return Map.of("message", e.getMessage());
+    }
+
+    @ExceptionHandler(MemberNotFoundException.class)
+    @ResponseStatus(HttpStatus.NOT_FOUND)
+    public Map<String, String> notFound(MemberNotFoundException e) {
+        return Map.of("message", e.getMessage());
+    }
+
+    // 컨버터에서 던진 예외는 MethodArgumentTypeMismatchException으로 감싸져서 온다.
+    @ExceptionHandler(MethodArgumentTypeMismatchException.class)
+    public ResponseEntity<Map<String, String>> typeMismatch(MethodArgumentTypeMismatchException e) {
+        for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+            if (cause instanceof MemberNotFoundException) {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("message", cause.getMessage()));
+            }
+        }
+        return ResponseEntity.badRequest().body(Map.of("message", "잘못된 요청 값 : " + e.getName()));
+    }
+}
@@ -0,0 +1,12 @@
+package study.datajpa.controller;
+
+/**
+ * 컨트롤러가 요청 값을 검증하다 던지는 예외 -> 400 (ApiExceptionHandler)
+ * 메시지가 그대로 응답에 나가기 때문에 클라이언트에게 보여줘도 되는 내용만 넣는다.
+ */
+public class InvalidRequestException extends RuntimeException {
+
+    public InvalidRequestException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,37 @@
+package study.datajpa.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import study.datajpa.cache.ItemCreationRollup;
+import study.datajpa.dto.RollupBucketDto;
+
+import java.util.List;
+
+@RestController
+@RequiredArgsConstructor
+public class ItemController {
+
+    private final ItemCreationRollup itemCreationRollup;
+
+    /**
+     * 최근 Item 생성 건수 (테이블 조회 없이 ItemCreationRollup에서)
+     * http://localhost:8080/items/creation-rollup?resolution=minute&last=60
+     */
+    @GetMapping("/items/creation-rollup")
+    public List<RollupBucketDto> creationRollup(@RequestParam(value = "resolution", defaultValue = "minute") String resolution,
+                                                @RequestParam(value = "last", defaultValue = "60") int last) {
+        ItemCreationRollup.Resolution parsed;
+        try {
+            parsed = ItemCreationRollup.resolution(resolution);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidRequestException(e.getMessage());
+        }
+        int size = itemCreationRollup.size(parsed);
+        if (last < 1 || last > size) {
+            throw new InvalidRequestException("last는 1 ~ " + size + " 사이여야 합니다.");
+        }
+        return itemCreationRollup.last(parsed, last);
+    }
+}
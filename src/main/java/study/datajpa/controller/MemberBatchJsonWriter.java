@@ -0,0 +1,61 @@
+package study.datajpa.controller;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import study.datajpa.entity.Member;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * POST /members/batch 응답
+ * 요청한 순서대로 키마다 한 줄씩 쓴다. 없는 키는 found = false
+ * username은 중복될 수 있어서 같은 키로 여러 줄이 나올 수 있다.
+ *
+ * [{"key":1,"found":true,"member":{"id":1,"username":"member1","teamName":"teamA"}},{"key":2,"found":false}]
+ */
+@Component
+@RequiredArgsConstructor
+public class MemberBatchJsonWriter {
+
+    private static final SerializedString KEY = new SerializedString("key");
+    private static final SerializedString FOUND = new SerializedString("found");
+    private static final SerializedString MEMBER = new SerializedString("member");
+
+    private final ObjectMapper objectMapper;
+
+    public <K> void write(List<K> keys, Map<K, List<Member>> membersByKey, OutputStream out) throws IOException {
+        try (JsonGenerator gen = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8)) {
+            gen.writeStartArray();
+            for (K key : keys) {
+                List<Member> members = membersByKey.get(key);
+                if (members == null) {
+                    gen.writeStartObject();
+                    gen.writeFieldName(KEY);
+                    gen.writeObject(key);
+                    gen.writeFieldName(FOUND);
+                    gen.writeBoolean(false);
+                    gen.writeEndObject();
+                    continue;
+                }
+                for (Member member : members) {
+                    gen.writeStartObject();
+                    gen.writeFieldName(KEY);
+                    gen.writeObject(key);
+                    gen.writeFieldName(FOUND);
+                    gen.writeBoolean(true);
+                    gen.writeFieldName(MEMBER);
+                    MemberPageJsonWriter.writeMember(gen, member);
+                    gen.writeEndObject();
+                }
+            }
+            gen.writeEndArray();
+        }
+    }
+}
@@ -1,40 +1,159 @@
 package study.datajpa.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import study.datajpa.cache.MemberAgeIndex;
+import study.datajpa.cache.MemberDtoCache;
+import study.datajpa.cache.MemberPageResponseCache;
+import study.datajpa.cache.MemberWriteBuffer;
+import study.datajpa.dto.AgeBucketDto;
+import study.datajpa.dto.AgeRankDto;
+import study.datajpa.dto.CachedMemberDto;
+import study.datajpa.dto.MemberBatchRequest;
 import study.datajpa.dto.MemberDto;
+import study.datajpa.dto.UsernameOnlyDto;
 import study.datajpa.entity.Member;
+import study.datajpa.event.MemberChangeCounter;
 import study.datajpa.repository.MemberRepository;
 
 import javax.annotation.PostConstruct;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 @RestController
 @RequiredArgsConstructor
 public class MemberController {
 
     private final MemberRepository memberRepository;
+    private final MemberPageJsonWriter memberPageJsonWriter;
+    private final MemberChangeCounter memberChangeCounter;
+    private final MemberDtoCache memberDtoCache;
+    private final MemberBatchJsonWriter memberBatchJsonWriter;
+    private final MemberWriteBuffer memberWriteBuffer;
+    private final MemberPageResponseCache memberPageResponseCache;
+    private final MemberAgeIndex memberAgeIndex;
+    private final ObjectMapper objectMapper;
 
+    @Value("${member.batch.max-size:1000}")
+    private int batchMaxSize;
+
+    /**
+     * 엔티티를 그대로 반환하면 직렬화할 때 지연로딩인 team 프록시를 건드릴 수 있다. -> DTO로 반환
+     * MemberDtoCache에서 조회하고, 캐시된 수정일로 조건부 GET(If-None-Match / If-Modified-Since)을 처리한다.
+     */
     @GetMapping("/members/{id}")
-    public Member findMember(@PathVariable("id") Long id) throws Exception{
-        return memberRepository.findById(id).orElseThrow(() -> new IllegalArgumentException("유저 없음"));
+    public MemberDto findMember(@PathVariable("id") Long id, WebRequest request) throws Exception{
+        CachedMemberDto member = memberDtoCache.get(id)
+                .orElseThrow(() -> new MemberNotFoundException(id));
+        // 쓰기 지연 버퍼에 아직 반영 안된 값이 있으면 그 값을 덮어서 보여준다. (수정일이 아직 안바뀌었으니 304 처리는 하지 않음)
+        if (memberWriteBuffer.hasPending(id)) {
+            return memberWriteBuffer.overlay(member.getDto());
+        }
+        if (request.checkNotModified(member.getETag(), member.getLastModified())) {
+            return null;
+        }
+        return member.getDto();
     }
 
+    /**
+     * 도메인 클래스 컨버터(@PathVariable("id") Member member)는 username 하나를 위해 엔티티 전체를 조회한다.
+     * -> UsernameOnlyDtoConverter가 username 컬럼만 조회해서 바로 DTO로 바인딩한다.
+     */
     @GetMapping("/members2/{id}")
-    public String findMember2(@PathVariable("id") Member member) throws Exception{
+    public String findMember2(@PathVariable("id") UsernameOnlyDto member) throws Exception{
         return member.getUsername();
     }
 
     //http://localhost:8080/members?page=2&size=20&sort=memberNo,desc
     @GetMapping("/members")
-    public Page<MemberDto> findMembers(@PageableDefault(size = 5) Pageable pageable) {
-        return memberRepository.findAll(pageable).map(MemberDto::new);
+    // 목록은 Member/Team 변경 카운터로 만든 weak ETag를 사용한다. (json, compact는 다른 표현이라 ETag도 다르다)
+    // 앞쪽 페이지는 직렬화된 JSON을 MemberPageResponseCache에 저장해두고 그대로 내려준다. (Page<MemberDto>와 같은 JSON)
+    public void findMembers(@PageableDefault(size = 5) Pageable pageable, WebRequest request, HttpServletResponse response) throws IOException {
+        if (request.checkNotModified(memberChangeCounter.weakETag("json"))) {
+            return;
+        }
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        memberPageResponseCache.write("json", pageable, response.getOutputStream(),
+                out -> objectMapper.writeValue(out, memberRepository.findAll(pageable).map(MemberDto::new)));
+    }
+
+    /**
+     * compact 포맷 : ?format=compact 파라미터 또는 Accept: application/vnd.datajpa.compact+json
+     * http://localhost:8080/members?page=2&size=20&format=compact
+     */
+    @GetMapping(value = "/members", params = "format=compact")
+    public void findMembersCompact(@PageableDefault(size = 5) Pageable pageable, WebRequest request, HttpServletResponse response) throws IOException {
+        if (request.checkNotModified(memberChangeCounter.weakETag("compact"))) {
+            return;
+        }
+        response.setContentType(MemberPageJsonWriter.COMPACT_JSON_VALUE);
+        memberPageResponseCache.write("compact", pageable, response.getOutputStream(),
+                out -> memberPageJsonWriter.write(memberRepository.findAll(pageable), out));
+    }
+
+    @GetMapping(value = "/members", produces = MemberPageJsonWriter.COMPACT_JSON_VALUE)
+    public void findMembersCompactByMediaType(@PageableDefault(size = 5) Pageable pageable, WebRequest request, HttpServletResponse response) throws IOException {
+        findMembersCompact(pageable, request, response);
+    }
+
+    /**
+     * 여러 멤버 한 번에 조회 (ids 또는 usernames, 최대 member.batch.max-size개)
+     * 쿼리 한 번으로 조회하고 요청한 순서대로 응답을 바로 스트리밍한다. (응답용 DTO 리스트를 만들지 않음)
+     */
+    @PostMapping("/members/batch")
+    public void findMembersBatch(@RequestBody MemberBatchRequest request, HttpServletResponse response) throws IOException {
+        boolean byIds = request.getIds() != null && !request.getIds().isEmpty();
+        boolean byUsernames = request.getUsernames() != null && !request.getUsernames().isEmpty();
+        if (byIds == byUsernames) {
+            throw new InvalidRequestException("ids, usernames 중 하나만 보내야 합니다.");
+        }
+        int size = byIds ? request.getIds().size() : request.getUsernames().size();
+        if (size > batchMaxSize) {
+            throw new InvalidRequestException("한 번에 조회할 수 있는 최대 개수는 " + batchMaxSize + "개 입니다.");
+        }
+
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        if (byIds) {
+            Map<Long, List<Member>> members = memberRepository.findWithTeamByMemberNoIn(new HashSet<>(request.getIds())).stream()
+                    .collect(Collectors.groupingBy(Member::getMemberNo));
+            memberBatchJsonWriter.write(request.getIds(), members, response.getOutputStream());
+        } else {
+            Map<String, List<Member>> members = memberRepository.findWithTeamByNames(new HashSet<>(request.getUsernames())).stream()
+                    .collect(Collectors.groupingBy(Member::getUsername));
+            memberBatchJsonWriter.write(request.getUsernames(), members, response.getOutputStream());
+        }
+    }
+
+    /**
+     * 나이 히스토그램 (bucket살 단위)
+     * http://localhost:8080/members/age-histogram?bucket=10
+     */
+    @GetMapping("/members/age-histogram")
+    public List<AgeBucketDto> ageHistogram(@RequestParam(value = "bucket", defaultValue = "10") int bucket) {
+        return memberAgeIndex.histogram(bucket);
+    }
+
+    // 나이 순위, 백분위 (count 쿼리 없이 MemberAgeIndex에서 O(log n)으로 계산)
+    @GetMapping("/members/{id}/age-rank")
+    public AgeRankDto ageRank(@PathVariable("id") Long id) {
+        return memberAgeIndex.rank(id)
+                .orElseThrow(() -> new MemberNotFoundException(id));
     }
 
 //    @PostConstruct
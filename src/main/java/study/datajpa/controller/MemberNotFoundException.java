@@ -0,0 +1,11 @@
+package study.datajpa.controller;
+
+/**
+ * 경로의 id에 해당하는 멤버가 없을 때 -> 404 (ApiExceptionHandler)
+ */
+public class MemberNotFoundException extends RuntimeException {
+
+    public MemberNotFoundException(Long id) {
+        super("유저 없음 : " + id);
+    }
+}
@@ -0,0 +1,78 @@
+package study.datajpa.controller;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.stereotype.Component;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * GET /members 의 가벼운(compact) 응답 포맷
+ * Page<MemberDto>를 그대로 반환하면 Jackson이 리플렉션으로 DTO를 직렬화하고
+ * pageable, sort 같은 메타데이터까지 매번 다 내려준다.
+ * -> JsonGenerator로 엔티티에서 바로 필요한 필드만 스트리밍으로 쓴다. (중간 DTO 리스트를 만들지 않음)
+ *
+ * {"content":[{"id":1,"username":"member1","teamName":"teamA"}, ...],"number":0,"size":5,"totalElements":100,"totalPages":20}
+ */
+@Component
+@RequiredArgsConstructor
+public class MemberPageJsonWriter {
+
+    public static final String COMPACT_JSON_VALUE = "application/vnd.datajpa.compact+json";
+
+    // 필드명은 미리 인코딩해두고 재사용한다.
+    private static final SerializedString CONTENT = new SerializedString("content");
+    private static final SerializedString ID = new SerializedString("id");
+    private static final SerializedString USERNAME = new SerializedString("username");
+    private static final SerializedString TEAM_NAME = new SerializedString("teamName");
+    private static final SerializedString NUMBER = new SerializedString("number");
+    private static final SerializedString SIZE = new SerializedString("size");
+    private static final SerializedString TOTAL_ELEMENTS = new SerializedString("totalElements");
+    private static final SerializedString TOTAL_PAGES = new SerializedString("totalPages");
+
+    private final ObjectMapper objectMapper;
+
+    public void write(Page<Member> page, OutputStream out) throws IOException {
+        try (JsonGenerator gen = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8)) {
+            gen.writeStartObject();
+
+            gen.writeFieldName(CONTENT);
+            gen.writeStartArray();
+            for (Member member : page) {
+                writeMember(gen, member);
+            }
+            gen.writeEndArray();
+
+            gen.writeFieldName(NUMBER);
+            gen.writeNumber(page.getNumber());
+            gen.writeFieldName(SIZE);
+            gen.writeNumber(page.getSize());
+            gen.writeFieldName(TOTAL_ELEMENTS);
+            gen.writeNumber(page.getTotalElements());
+            gen.writeFieldName(TOTAL_PAGES);
+            gen.writeNumber(page.getTotalPages());
+
+            gen.writeEndObject();
+        }
+    }
+
+    // MemberDto(Member)와 같은 값을 쓴다. (팀이 없으면 빈 문자열)
+    static void writeMember(JsonGenerator gen, Member member) throws IOException {
+        gen.writeStartObject();
+        gen.writeFieldName(ID);
+        gen.writeNumber(member.getMemberNo());
+        gen.writeFieldName(USERNAME);
+        gen.writeString(member.getUsername());
+        gen.writeFieldName(TEAM_NAME);
+        Team team = member.getTeam();
+        gen.writeString(team == null ? "" : team.getName());
+        gen.writeEndObject();
+    }
+}
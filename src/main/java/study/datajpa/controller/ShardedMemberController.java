@@ -0,0 +1,77 @@
+package study.datajpa.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+import study.datajpa.shard.ShardedMember;
+import study.datajpa.shard.ShardedMemberStore;
+
+/**
+ * 샤드에 나눠 저장하는 멤버 (member.shard.enabled=true 일 때만)
+ * 기본 DB의 /members(MemberRepository)와는 따로 저장된다.
+ */
+@RestController
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "member.shard.enabled", havingValue = "true")
+public class ShardedMemberController {
+
+    private final ShardedMemberStore shardedMemberStore;
+
+    @PostMapping("/shard/members")
+    @ResponseStatus(HttpStatus.CREATED)
+    public ShardedMember save(@RequestParam("username") String username,
+                              @RequestParam("age") int age,
+                              @RequestParam(value = "teamNo", required = false) Long teamNo) {
+        return shardedMemberStore.save(username, age, teamNo);
+    }
+
+    @GetMapping("/shard/members/{id}")
+    public ShardedMember findMember(@PathVariable("id") Long id) {
+        return shardedMemberStore.findById(id)
+                .orElseThrow(() -> new MemberNotFoundException(id));
+    }
+
+    /**
+     * http://localhost:8080/shard/members?age=10&sort=username
+     * 모든 샤드에서 page 끝까지 읽어서 합치므로 뒤쪽 페이지일수록 비싸다.
+     */
+    @GetMapping("/shard/members")
+    public Page<ShardedMember> findMembers(@RequestParam(value = "age", required = false) Integer age,
+                                           @RequestParam(value = "teamNo", required = false) Long teamNo,
+                                           @PageableDefault(size = 5) Pageable pageable) {
+        for (Sort.Order order : pageable.getSort()) {
+            if (!ShardedMemberStore.sortable(order.getProperty())) {
+                throw new InvalidRequestException("정렬할 수 없는 필드 : " + order.getProperty());
+            }
+        }
+        if (age != null && teamNo != null) {
+            throw new InvalidRequestException("age와 teamNo는 같이 쓸 수 없습니다.");
+        }
+        if (age != null) {
+            return shardedMemberStore.findByAge(age, pageable);
+        }
+        if (teamNo != null) {
+            return shardedMemberStore.findByTeamNo(teamNo, pageable);
+        }
+        return shardedMemberStore.findAll(pageable);
+    }
+
+    @DeleteMapping("/shard/members/{id}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void delete(@PathVariable("id") Long id) {
+        if (!shardedMemberStore.deleteById(id)) {
+            throw new MemberNotFoundException(id);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package study.datajpa.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.stereotype.Component;
+import study.datajpa.dto.UsernameOnlyDto;
+import study.datajpa.repository.MemberRepository;
+
+/**
+ * @PathVariable("id") UsernameOnlyDto 바인딩용 컨버터
+ * 스프링 데이터의 도메인 클래스 컨버터는 엔티티 전체를 조회하지만
+ * 이 컨버터는 username 컬럼 하나만 DTO로 조회한다. (영속성 컨텍스트에 엔티티가 올라가지 않음)
+ * 스프링 부트는 Converter 빈을 MVC 컨버전 서비스에 자동으로 등록해준다.
+ */
+@Component
+@RequiredArgsConstructor
+public class UsernameOnlyDtoConverter implements Converter<String, UsernameOnlyDto> {
+
+    private final MemberRepository memberRepository;
+
+    @Override
+    public UsernameOnlyDto convert(String source) {
+        Long id = Long.valueOf(source);
+        return memberRepository.findUsernameOnlyById(id)
+                .orElseThrow(() -> new MemberNotFoundException(id));
+    }
+}
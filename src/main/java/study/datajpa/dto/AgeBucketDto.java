@@ -0,0 +1,17 @@
+package study.datajpa.dto;
+
+import lombok.Getter;
+
+@Getter
+public class AgeBucketDto {
+
+    private final int fromAge;
+    private final int toAge;
+    private final long count;
+
+    public AgeBucketDto(int fromAge, int toAge, long count) {
+        this.fromAge = fromAge;
+        this.toAge = toAge;
+        this.count = count;
+    }
+}
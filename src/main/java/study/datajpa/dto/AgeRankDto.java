@@ -0,0 +1,29 @@
+package study.datajpa.dto;
+
+import lombok.Getter;
+
+/**
+ * younger : 나이가 더 적은 멤버 수, sameAge : 같은 나이 멤버 수 (본인 포함)
+ * rank : 나이 많은 순 등수 (같은 나이는 같은 등수), percentile : 더 어린 멤버의 비율(%)
+ */
+@Getter
+public class AgeRankDto {
+
+    private final Long memberNo;
+    private final int age;
+    private final long younger;
+    private final long sameAge;
+    private final long total;
+    private final long rank;
+    private final double percentile;
+
+    public AgeRankDto(Long memberNo, int age, long younger, long sameAge, long total) {
+        this.memberNo = memberNo;
+        this.age = age;
+        this.younger = younger;
+        this.sameAge = sameAge;
+        this.total = total;
+        this.rank = total - younger - sameAge + 1;
+        this.percentile = total == 0 ? 0 : younger * 100.0 / total;
+    }
+}
@@ -0,0 +1,32 @@
+package study.datajpa.dto;
+
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * MemberDtoCache에 올라가는 값
+ * 응답으로 내려줄 MemberDto와 조건부 GET에 필요한 수정일을 같이 들고 있는다.
+ * JPQL new 생성자로 바로 조회한다. (MemberRepository.findCachedMemberDtoByIdIn)
+ * 응답에 teamName도 들어가기 때문에 수정일은 멤버와 팀의 수정일 중 늦은 쪽이다. (팀 이름만 바뀌어도 ETag, Last-Modified가 바뀐다)
+ */
+@Getter
+public class CachedMemberDto {
+
+    private final MemberDto dto;
+    private final long lastModified;
+
+    public CachedMemberDto(Long id, String username, String teamName, LocalDateTime memberLastModifiedDate, LocalDateTime teamLastModifiedDate) {
+        this.dto = new MemberDto(id, username, teamName == null ? "" : teamName);
+        this.lastModified = Math.max(epochMilli(memberLastModifiedDate), epochMilli(teamLastModifiedDate));
+    }
+
+    private static long epochMilli(LocalDateTime dateTime) {
+        return dateTime == null ? 0 : dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    public String getETag() {
+        return "\"" + dto.getId() + "-" + lastModified + "\"";
+    }
+}
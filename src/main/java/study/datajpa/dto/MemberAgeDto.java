@@ -0,0 +1,19 @@
+package study.datajpa.dto;
+
+import lombok.Getter;
+import lombok.ToString;
+
+@Getter
+@ToString
+public class MemberAgeDto {
+
+    private final Long memberNo;
+    private final String username;
+    private final int age;
+
+    public MemberAgeDto(Long memberNo, String username, int age) {
+        this.memberNo = memberNo;
+        this.username = username;
+        this.age = age;
+    }
+}
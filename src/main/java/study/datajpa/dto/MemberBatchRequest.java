@@ -0,0 +1,19 @@
+package study.datajpa.dto;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+/**
+ * POST /members/batch 요청 (ids, usernames 중 하나만)
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+public class MemberBatchRequest {
+
+    private List<Long> ids;
+    private List<String> usernames;
+}
@@ -0,0 +1,28 @@
+package study.datajpa.dto;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * 회원 검색 조건 (null이면 조건에서 빠진다)
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+public class MemberSearchCondition {
+
+    private String username;
+    private Integer ageGoe;
+    private Integer ageLoe;
+    private String teamName;
+
+    @Builder
+    public MemberSearchCondition(String username, Integer ageGoe, Integer ageLoe, String teamName) {
+        this.username = username;
+        this.ageGoe = ageGoe;
+        this.ageLoe = ageLoe;
+        this.teamName = teamName;
+    }
+}
@@ -0,0 +1,17 @@
+package study.datajpa.dto;
+
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+@Getter
+public class RollupBucketDto {
+
+    private final LocalDateTime start;
+    private final long count;
+
+    public RollupBucketDto(LocalDateTime start, long count) {
+        this.start = start;
+        this.count = count;
+    }
+}
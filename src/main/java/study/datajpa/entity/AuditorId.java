@@ -0,0 +1,82 @@
+package study.datajpa.entity;
+
+import org.hibernate.annotations.Immutable;
+
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.util.UUID;
+
+/**
+ * 등록자/수정자 식별자 (UUID 값을 long 두 개로 들고 있는 값 타입)
+ * 36자리 UUID 문자열로 들고 있으면 엔티티마다 String + byte[]가 따로 올라간다.
+ * -> 힙에는 long 두 개만 올라간다. 문자열은 toString()을 호출할 때만 만든다.
+ * 컬럼 형식(문자열 / 16바이트)은 AuditorIdFormat으로 고른다.
+ *
+ * 불변 객체이기 때문에 @Immutable을 붙여서 하이버네이트가 스냅샷을 만들 때 복사하지 않게 한다.
+ */
+@Immutable
+public final class AuditorId implements Serializable {
+
+    public static final int BYTES = 16;
+    // 컬럼 길이 : 두 형식 중 긴 쪽 (UUID 문자열 36자리, 16바이트는 varbinary(36)에 들어간다)
+    public static final int COLUMN_LENGTH = 36;
+
+    private final long mostSigBits;
+    private final long leastSigBits;
+
+    public AuditorId(long mostSigBits, long leastSigBits) {
+        this.mostSigBits = mostSigBits;
+        this.leastSigBits = leastSigBits;
+    }
+
+    public static AuditorId random() {
+        UUID uuid = UUID.randomUUID();
+        return new AuditorId(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+    }
+
+    public static AuditorId fromString(String value) {
+        UUID uuid = UUID.fromString(value);
+        return new AuditorId(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+    }
+
+    public static AuditorId fromBytes(byte[] bytes) {
+        if (bytes.length != BYTES) {
+            throw new IllegalArgumentException("AuditorId는 16바이트여야 합니다. : " + bytes.length);
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        return new AuditorId(buffer.getLong(), buffer.getLong());
+    }
+
+    public byte[] toBytes() {
+        return ByteBuffer.allocate(BYTES)
+                .putLong(mostSigBits)
+                .putLong(leastSigBits)
+                .array();
+    }
+
+    public long getMostSigBits() {
+        return mostSigBits;
+    }
+
+    public long getLeastSigBits() {
+        return leastSigBits;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof AuditorId)) return false;
+        AuditorId other = (AuditorId) o;
+        return mostSigBits == other.mostSigBits && leastSigBits == other.leastSigBits;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(mostSigBits) * 31 + Long.hashCode(leastSigBits);
+    }
+
+    @Override
+    public String toString() {
+        return new UUID(mostSigBits, leastSigBits).toString();
+    }
+}
@@ -0,0 +1,20 @@
+package study.datajpa.entity;
+
+import javax.persistence.AttributeConverter;
+
+/**
+ * AuditorId <-> binary(16) (member.audit.auditor-format=BINARY)
+ * 어느 컨버터를 쓸지는 AuditorIdFormat이 정하므로 @Converter를 붙이지 않는다. (붙이면 엔티티 스캔에 걸려서 항상 적용됨)
+ */
+public class AuditorIdConverter implements AttributeConverter<AuditorId, byte[]> {
+
+    @Override
+    public byte[] convertToDatabaseColumn(AuditorId attribute) {
+        return attribute == null ? null : attribute.toBytes();
+    }
+
+    @Override
+    public AuditorId convertToEntityAttribute(byte[] dbData) {
+        return dbData == null ? null : AuditorId.fromBytes(dbData);
+    }
+}
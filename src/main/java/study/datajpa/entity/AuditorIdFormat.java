@@ -0,0 +1,34 @@
+package study.datajpa.entity;
+
+import org.hibernate.boot.spi.MetadataBuilderContributor;
+
+import javax.persistence.AttributeConverter;
+
+/**
+ * created_by, updated_by 컬럼 형식 (member.audit.auditor-format, 기본 STRING)
+ * - STRING : UUID 문자열 varchar(36). 예전 String 매핑으로 만든 컬럼과 데이터를 그대로 쓴다.
+ * - BINARY : binary(16). 컬럼이 작고, 읽을 때 문자열을 만들지 않는다.
+ * 어느 쪽이든 엔티티 필드는 AuditorId(long 두 개)라서 힙에 올라가는 크기는 같다.
+ *
+ * 선택한 컨버터를 하이버네이트 메타데이터에 autoApply로 등록한다. (DataJpaApplication.auditorIdFormatCustomizer)
+ * 형식을 바꾸려면 기존 데이터를 옮겨야 한다. (STRING -> BINARY : 컬럼 타입을 바꾸고 UUID 문자열을 16바이트로 변환)
+ */
+public enum AuditorIdFormat {
+
+    STRING(AuditorIdStringConverter.class),
+    BINARY(AuditorIdConverter.class);
+
+    private final Class<? extends AttributeConverter<AuditorId, ?>> converter;
+
+    AuditorIdFormat(Class<? extends AttributeConverter<AuditorId, ?>> converter) {
+        this.converter = converter;
+    }
+
+    public Class<? extends AttributeConverter<AuditorId, ?>> converter() {
+        return converter;
+    }
+
+    public MetadataBuilderContributor contributor() {
+        return metadataBuilder -> metadataBuilder.applyAttributeConverter(converter, true);
+    }
+}
@@ -0,0 +1,21 @@
+package study.datajpa.entity;
+
+import javax.persistence.AttributeConverter;
+
+/**
+ * AuditorId <-> UUID 문자열 (varchar)
+ * 예전 String 매핑으로 만든 created_by, updated_by 컬럼을 그대로 읽고 쓴다. (member.audit.auditor-format=STRING)
+ * 어느 컨버터를 쓸지는 AuditorIdFormat이 정하므로 @Converter를 붙이지 않는다.
+ */
+public class AuditorIdStringConverter implements AttributeConverter<AuditorId, String> {
+
+    @Override
+    public String convertToDatabaseColumn(AuditorId attribute) {
+        return attribute == null ? null : attribute.toString();
+    }
+
+    @Override
+    public AuditorId convertToEntityAttribute(String dbData) {
+        return dbData == null ? null : AuditorId.fromString(dbData);
+    }
+}
@@ -14,10 +14,12 @@ import javax.persistence.MappedSuperclass;
 @Getter
 public class BaseEntity extends BaseTimeEntity{
 
+    // 컬럼 형식은 member.audit.auditor-format (AuditorIdFormat)
     @CreatedBy
-    @Column(updatable = false)
-    private String createdBy;
+    @Column(updatable = false, length = AuditorId.COLUMN_LENGTH)
+    private AuditorId createdBy;
 
     @LastModifiedBy
-    private String updatedBy;
+    @Column(length = AuditorId.COLUMN_LENGTH)
+    private AuditorId updatedBy;
 }
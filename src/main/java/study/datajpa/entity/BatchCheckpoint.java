@@ -0,0 +1,45 @@
+package study.datajpa.entity;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 배치 청크 체크포인트
+ * 청크 처리와 같은 트랜잭션에서 저장되기 때문에 체크포인트가 있으면 그 청크는 커밋된 것이다.
+ * 재시작하면 체크포인트가 있는 청크는 건너뛴다.
+ */
+@Entity
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Table(uniqueConstraints = @UniqueConstraint(columnNames = {"jobName", "chunkStart"}))
+public class BatchCheckpoint {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private String jobName;
+
+    private long chunkStart; // 포함
+
+    private long chunkEnd; // 미포함
+
+    private int processedCount;
+
+    private long elapsedMillis;
+
+    private LocalDateTime completedDate;
+
+    public BatchCheckpoint(String jobName, long chunkStart, long chunkEnd, int processedCount, long elapsedMillis) {
+        this.jobName = jobName;
+        this.chunkStart = chunkStart;
+        this.chunkEnd = chunkEnd;
+        this.processedCount = processedCount;
+        this.elapsedMillis = elapsedMillis;
+        this.completedDate = LocalDateTime.now();
+    }
+}
@@ -6,6 +6,7 @@ import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.domain.Persistable;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+import study.datajpa.event.EntityChangePublisher;
 
 import javax.persistence.Entity;
 import javax.persistence.EntityListeners;
@@ -15,7 +16,7 @@ import java.time.LocalDateTime;
 
 @Entity
 @Getter
-@EntityListeners(AuditingEntityListener.class)
+@EntityListeners({AuditingEntityListener.class, EntityChangePublisher.class})
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 public class Item implements Persistable<String>{
 
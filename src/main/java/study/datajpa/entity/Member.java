@@ -1,10 +1,24 @@
 package study.datajpa.entity;
 
 import lombok.*;
+import study.datajpa.event.EntityChangePublisher;
 
 import javax.persistence.*;
 
+/**
+ * 인덱스 (MemberRepository 조회 조건 기준)
+ * - username : findByUsername, findByNames, findLockByUsername ...
+ * - (age, username) : findByAge, findByPage(where age = ? order by username), findTop3ByOrderByAgeDesc(age만 사용)
+ * - TEAM_NO : 팀으로 조인/조회 (findTeamMembersAfter, countByTeamTeamNo)
+ * 인덱스를 추가할 때는 IndexAdvisor(/actuator/indexadvice) 결과를 참고하자.
+ */
 @Entity
+@EntityListeners(EntityChangePublisher.class)
+@Table(indexes = {
+        @Index(name = "idx_member_username", columnList = "username"),
+        @Index(name = "idx_member_age_username", columnList = "age, username"),
+        @Index(name = "idx_member_team_no", columnList = "TEAM_NO, MEMBER_ID")
+})
 @Getter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @ToString(of = {"memberNo", "username", "age"}) // 연관관계가 걸려있는 필드는 toString 안하는 게 좋다(무한루프 가능성이 있음)
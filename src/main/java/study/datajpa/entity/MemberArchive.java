@@ -0,0 +1,43 @@
+package study.datajpa.entity;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import java.time.LocalDateTime;
+
+/**
+ * 삭제된 Member 보관 테이블
+ * MemberArchiver가 insert ... select로 한 번에 채우기 때문에 애플리케이션에서 직접 생성하지 않는다.
+ */
+@Entity
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class MemberArchive {
+
+    @Id
+    @Column(name = "MEMBER_ID")
+    private Long memberNo;
+
+    private String username;
+
+    private int age;
+
+    @Column(name = "TEAM_NO")
+    private Long teamNo;
+
+    private LocalDateTime createdDate;
+
+    private LocalDateTime lastModifiedDate;
+
+    @Column(length = AuditorId.COLUMN_LENGTH)
+    private AuditorId createdBy;
+
+    @Column(length = AuditorId.COLUMN_LENGTH)
+    private AuditorId updatedBy;
+
+    private LocalDateTime archivedDate;
+}
@@ -1,16 +1,21 @@
 package study.datajpa.entity;
 
 import lombok.*;
+import org.hibernate.annotations.LazyCollection;
+import org.hibernate.annotations.LazyCollectionOption;
+import study.datajpa.event.EntityChangePublisher;
 
 import javax.persistence.*;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+@EntityListeners(EntityChangePublisher.class)
+@Table(indexes = @Index(name = "idx_team_name", columnList = "name")) // findMemberDtoByTeamName
 @Getter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @ToString(of = {"teamNo", "name"})
-public class Team {
+public class Team extends BaseTimeEntity {
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -19,11 +24,22 @@ public class Team {
 
     private String name;
 
+    /**
+     * EXTRA : 컬렉션을 초기화하지 않고 size()는 count 쿼리로, contains()는 단건 select로 처리한다.
+     * 연관관계의 주인이 아닌 쪽(mappedBy)의 add()는 초기화 없이 큐에 쌓아두기 때문에
+     * 멤버가 많은 팀에서도 changeTeam()이 전체 멤버를 로딩하지 않는다.
+     * -> 멤버 목록이 필요하면 컬렉션을 순회하지 말고 MemberRepository.findTeamMembersAfter()로 페이징해서 가져오자.
+     */
     @OneToMany(mappedBy = "team")
+    @LazyCollection(LazyCollectionOption.EXTRA)
     private List<Member> members = new ArrayList<>();
 
     @Builder
     public Team(String name) {
         this.name = name;
     }
+
+    public void changeName(String name) {
+        this.name = name;
+    }
 }
@@ -0,0 +1,18 @@
+package study.datajpa.event;
+
+import lombok.Getter;
+
+/**
+ * 벌크성 쿼리(update, delete)가 실행되었을 때 발행되는 이벤트
+ * 벌크성 쿼리는 영속성 컨텍스트와 엔티티 리스너를 거치지 않기 때문에 EntityChangedEvent가 발행되지 않는다.
+ * -> 어떤 row가 바뀌었는지 모르니 받는 쪽에서 해당 엔티티 전체가 바뀌었다고 보고 처리해야 한다.
+ */
+@Getter
+public class BulkChangedEvent {
+
+    private final Class<?> entityType;
+
+    public BulkChangedEvent(Class<?> entityType) {
+        this.entityType = entityType;
+    }
+}
@@ -0,0 +1,36 @@
+package study.datajpa.event;
+
+import org.springframework.context.ApplicationEventPublisher;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+/**
+ * JPA 엔티티 리스너 -> 스프링 이벤트
+ * 스프링 부트는 하이버네이트에 SpringBeanContainer를 등록해주기 때문에 엔티티 리스너도 생성자 주입을 받을 수 있다.
+ * 사용 : @EntityListeners(EntityChangePublisher.class)
+ */
+public class EntityChangePublisher {
+
+    private final ApplicationEventPublisher publisher;
+
+    public EntityChangePublisher(ApplicationEventPublisher publisher) {
+        this.publisher = publisher;
+    }
+
+    @PostPersist
+    public void postPersist(Object entity) {
+        publisher.publishEvent(new EntityChangedEvent(entity, EntityChangeType.PERSIST));
+    }
+
+    @PostUpdate
+    public void postUpdate(Object entity) {
+        publisher.publishEvent(new EntityChangedEvent(entity, EntityChangeType.UPDATE));
+    }
+
+    @PostRemove
+    public void postRemove(Object entity) {
+        publisher.publishEvent(new EntityChangedEvent(entity, EntityChangeType.REMOVE));
+    }
+}
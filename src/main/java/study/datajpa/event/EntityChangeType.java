@@ -0,0 +1,5 @@
+package study.datajpa.event;
+
+public enum EntityChangeType {
+    PERSIST, UPDATE, REMOVE
+}
@@ -0,0 +1,23 @@
+package study.datajpa.event;
+
+import lombok.Getter;
+
+/**
+ * 엔티티 한 건이 저장/수정/삭제되었을 때 발행되는 이벤트
+ * 리스너는 @TransactionalEventListener로 받아서 커밋된 뒤에만 반영하는 것이 좋다.
+ */
+@Getter
+public class EntityChangedEvent {
+
+    private final Object entity;
+    private final EntityChangeType type;
+
+    public EntityChangedEvent(Object entity, EntityChangeType type) {
+        this.entity = entity;
+        this.type = type;
+    }
+
+    public boolean isOf(Class<?> entityType) {
+        return entityType.isInstance(entity);
+    }
+}
@@ -0,0 +1,49 @@
+package study.datajpa.event;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Member 목록의 변경 카운터
+ * Member, Team(MemberDto에 팀 이름이 들어가기 때문에)이 커밋될 때마다 1씩 증가한다.
+ * 목록 조회의 weak ETag로 사용한다.
+ * 재시작하면 카운터가 0부터 다시 시작하기 때문에 기동 시각을 같이 붙인다.
+ * 같은 목록이라도 표현(json, compact)이 다르면 ETag가 달라야 하기 때문에 표현 이름도 붙인다.
+ */
+@Component
+public class MemberChangeCounter {
+
+    private final long epoch = System.currentTimeMillis();
+    private final AtomicLong counter = new AtomicLong();
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEntityChanged(EntityChangedEvent event) {
+        if (event.isOf(Member.class) || event.isOf(Team.class)) {
+            counter.incrementAndGet();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBulkChanged(BulkChangedEvent event) {
+        if (event.getEntityType() == Member.class || event.getEntityType() == Team.class) {
+            counter.incrementAndGet();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMembersUpdated(MembersUpdatedEvent event) {
+        counter.incrementAndGet();
+    }
+
+    public long current() {
+        return counter.get();
+    }
+
+    public String weakETag(String representation) {
+        return "W/\"" + epoch + "-" + counter.get() + "-" + representation + "\"";
+    }
+}
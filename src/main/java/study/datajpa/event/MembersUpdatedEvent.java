@@ -0,0 +1,19 @@
+package study.datajpa.event;
+
+import lombok.Getter;
+
+import java.util.Collection;
+
+/**
+ * JPA를 거치지 않고(JDBC) 특정 Member row들이 수정되었을 때 발행되는 이벤트
+ * BulkChangedEvent와 달리 바뀐 memberNo를 알고 있기 때문에 받는 쪽에서 해당 멤버만 반영하면 된다.
+ */
+@Getter
+public class MembersUpdatedEvent {
+
+    private final Collection<Long> memberNos;
+
+    public MembersUpdatedEvent(Collection<Long> memberNos) {
+        this.memberNos = memberNos;
+    }
+}
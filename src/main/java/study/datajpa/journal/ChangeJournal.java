@@ -0,0 +1,333 @@
+package study.datajpa.journal;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.unit.DataSize;
+import study.datajpa.entity.Item;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.event.BulkChangedEvent;
+import study.datajpa.event.EntityChangedEvent;
+import study.datajpa.event.MembersUpdatedEvent;
+
+import javax.annotation.PreDestroy;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Member/Team/Item 변경 저널 (member.journal.enabled=true 일 때만)
+ * 캐시, 검색 인덱스 같은 하위 소비자가 테이블을 폴링하지 않고 이 저널을 따라 읽으면서 상태를 만든다.
+ *
+ * - 커밋된 변경(EntityChangedEvent, BulkChangedEvent, MembersUpdatedEvent)을 레코드 하나로 덧붙인다. (JournalRecord 레이아웃 참고)
+ * - 세그먼트 파일(member.journal.segment-size)을 메모리 맵으로 열어서 쓴다. 가득 차면 다음 세그먼트로 넘어간다.
+ *   파일 이름은 세그먼트 첫 레코드의 오프셋이다. (00000000000067108864.journal)
+ *   member.journal.max-segments 보다 많아지면 오래된 세그먼트부터 지운다.
+ * - 오프셋 : 저널 전체에서의 위치 (세그먼트 시작 오프셋 + 세그먼트 안의 위치)
+ * - 레코드 본문을 다 쓴 다음 마지막에 길이를 쓴다. -> 길이가 0인 자리는 아직 안 쓴 자리로 본다. (중간에 죽어도 반쯤 쓴 레코드는 무시)
+ * - 읽기 : reader(offset)로 JournalReader를 만들어서 poll 한다. 세그먼트 버퍼를 그대로 보여주기 때문에 복사가 없다.
+ *   지워진 오프셋을 읽으면 JournalTruncatedException (소비자가 전체를 다시 만들어야 한다)
+ * - force(디스크 동기화)는 세그먼트를 넘길 때와 종료할 때만 한다. 프로세스가 죽어도 OS 페이지 캐시에 남지만 장비가 죽으면 마지막 부분은 잃을 수 있다.
+ * - 다음 세그먼트는 미리 만들어 둔다. (세그먼트를 넘기는 순간 파일을 못 만들어서 레코드를 잃지 않도록)
+ *   미리 못 만들었으면 넘길 때 몇 번 다시 시도한다. 다시 열 때 비어있는 마지막 파일은 미리 만든 세그먼트로 본다.
+ * - 이벤트로 덧붙이다 실패하면(세그먼트를 못 만듦, key가 너무 김) 커밋은 이미 끝났기 때문에 예외를 던지지 않고
+ *   실패 수(appendFailures)를 올리고 에러 로그를 남긴다. -> /actuator/health의 changeJournal, change.journal.append.failures 메트릭
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "member.journal.enabled", havingValue = "true")
+public class ChangeJournal implements Closeable {
+
+    private static final String SUFFIX = ".journal";
+    private static final byte[] NO_KEY = new byte[0];
+    private static final int ROLL_ATTEMPTS = 3;
+
+    private final Path directory;
+    private final int segmentSize;
+    private final int maxSegments;
+
+    // 세그먼트 시작 오프셋 -> 읽기 전용 뷰
+    private final ConcurrentSkipListMap<Long, ByteBuffer> segments = new ConcurrentSkipListMap<>();
+
+    private MappedByteBuffer current;
+    private long currentBase;
+    private int writePosition;
+    // 미리 만들어 둔 다음 세그먼트 (currentBase + current.capacity() 에서 시작, 못 만들었으면 null)
+    private MappedByteBuffer preallocated;
+    // 여기까지 쓴 레코드는 읽어도 된다.
+    private volatile long endOffset;
+
+    private final AtomicLong appendFailures = new AtomicLong();
+    private volatile boolean failing;
+    private volatile String lastFailure;
+
+    public ChangeJournal(@Value("${member.journal.dir:journal}") String directory,
+                         @Value("${member.journal.segment-size:64MB}") DataSize segmentSize,
+                         @Value("${member.journal.max-segments:16}") int maxSegments) throws IOException {
+        this.directory = Paths.get(directory);
+        this.segmentSize = Math.toIntExact(segmentSize.toBytes());
+        this.maxSegments = Math.max(1, maxSegments);
+        open();
+    }
+
+    private void open() throws IOException {
+        Files.createDirectories(directory);
+        List<Long> bases;
+        try (Stream<Path> files = Files.list(directory)) {
+            bases = files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.endsWith(SUFFIX))
+                    .map(name -> Long.parseLong(name.substring(0, name.length() - SUFFIX.length())))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+        if (bases.isEmpty()) {
+            bases = List.of(0L);
+        }
+
+        // 마지막 세그먼트에서 이어서 쓴다. 마지막 파일이 비어있으면 미리 만들어 둔 세그먼트이니 그 앞에서 이어서 쓴다.
+        int last = bases.size() - 1;
+        MappedByteBuffer lastSegment = mapForWrite(bases.get(last));
+        if (last > 0 && recover(lastSegment) == 0) {
+            preallocated = lastSegment;
+            last--;
+            lastSegment = mapForWrite(bases.get(last));
+        }
+        for (Long base : bases.subList(0, last)) {
+            segments.put(base, mapReadOnly(base));
+        }
+        currentBase = bases.get(last);
+        current = lastSegment;
+        segments.put(currentBase, current.asReadOnlyBuffer());
+        writePosition = recover(current);
+        endOffset = currentBase + writePosition;
+        retain();
+        if (preallocated == null) {
+            preallocate();
+        }
+        log.info("change journal {} segments={} endOffset={}", directory.toAbsolutePath(), segments.size(), endOffset);
+    }
+
+    // 길이가 0이거나 세그먼트를 벗어나는 레코드가 나올 때까지 건너뛴다.
+    private static int recover(ByteBuffer buffer) {
+        int position = 0;
+        while (position + JournalRecord.LENGTH_SIZE <= buffer.capacity()) {
+            int length = buffer.getInt(position);
+            if (length <= 0 || position + JournalRecord.LENGTH_SIZE + length > buffer.capacity()) {
+                break;
+            }
+            position += JournalRecord.LENGTH_SIZE + length;
+        }
+        return position;
+    }
+
+    public synchronized long append(byte entity, byte change, long id, String key) {
+        byte[] keyBytes = key == null ? NO_KEY : key.getBytes(StandardCharsets.UTF_8);
+        if (keyBytes.length > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("key가 너무 깁니다. length=" + keyBytes.length);
+        }
+        int size = JournalRecord.LENGTH_SIZE + JournalRecord.HEADER_SIZE + keyBytes.length;
+        if (size > segmentSize) {
+            throw new IllegalArgumentException("레코드가 세그먼트보다 큽니다. size=" + size);
+        }
+        if (writePosition + size > current.capacity()) {
+            roll();
+        }
+
+        int position = writePosition;
+        int body = position + JournalRecord.LENGTH_SIZE;
+        current.putLong(body, System.currentTimeMillis());
+        current.put(body + 8, entity);
+        current.put(body + 9, change);
+        current.putLong(body + 10, id);
+        current.putShort(body + 18, (short) keyBytes.length);
+        if (keyBytes.length > 0) {
+            current.duplicate().position(body + JournalRecord.HEADER_SIZE).put(keyBytes);
+        }
+        current.putInt(position, size - JournalRecord.LENGTH_SIZE);
+
+        writePosition += size;
+        endOffset = currentBase + writePosition;
+        return currentBase + position;
+    }
+
+    private void roll() {
+        long nextBase = currentBase + current.capacity();
+        MappedByteBuffer next = preallocated;
+        IOException failure = null;
+        for (int attempt = 0; next == null && attempt < ROLL_ATTEMPTS; attempt++) {
+            try {
+                next = mapForWrite(nextBase);
+            } catch (IOException e) {
+                failure = e;
+                log.warn("change journal segment {} create failed (attempt {})", nextBase, attempt + 1, e);
+            }
+        }
+        if (next == null) {
+            throw new UncheckedIOException("다음 세그먼트를 만들 수 없습니다. base=" + nextBase, failure);
+        }
+
+        current.force();
+        segments.put(nextBase, next.asReadOnlyBuffer());
+        current = next;
+        currentBase = nextBase;
+        writePosition = 0;
+        endOffset = nextBase;
+        preallocated = null;
+        try {
+            retain();
+        } catch (IOException e) {
+            log.warn("change journal retain failed", e);
+        }
+        preallocate();
+    }
+
+    // 실패해도 다음 roll()에서 다시 만든다.
+    private void preallocate() {
+        long nextBase = currentBase + current.capacity();
+        try {
+            preallocated = mapForWrite(nextBase);
+        } catch (IOException e) {
+            log.warn("change journal segment {} preallocation failed", nextBase, e);
+        }
+    }
+
+    // 오래된 세그먼트 삭제. 그 세그먼트를 읽던 JournalReader는 다음 poll에서 JournalTruncatedException을 던진다.
+    private void retain() throws IOException {
+        while (segments.size() > maxSegments) {
+            Map.Entry<Long, ByteBuffer> oldest = segments.pollFirstEntry();
+            Files.deleteIfExists(segmentFile(oldest.getKey()));
+            log.info("change journal segment {} deleted", oldest.getKey());
+        }
+    }
+
+    public JournalReader reader(long offset) {
+        return new JournalReader(this, offset);
+    }
+
+    public long startOffset() {
+        return segments.firstKey();
+    }
+
+    public long endOffset() {
+        return endOffset;
+    }
+
+    Map.Entry<Long, ByteBuffer> segment(long offset) {
+        return segments.floorEntry(offset);
+    }
+
+    Long nextSegment(long base) {
+        return segments.higherKey(base);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEntityChanged(EntityChangedEvent event) {
+        byte change;
+        switch (event.getType()) {
+            case PERSIST:
+                change = JournalRecord.PERSIST;
+                break;
+            case UPDATE:
+                change = JournalRecord.UPDATE;
+                break;
+            default:
+                change = JournalRecord.REMOVE;
+        }
+        if (event.isOf(Member.class)) {
+            appendCommitted(JournalRecord.MEMBER, change, ((Member) event.getEntity()).getMemberNo(), null);
+        } else if (event.isOf(Team.class)) {
+            appendCommitted(JournalRecord.TEAM, change, ((Team) event.getEntity()).getTeamNo(), null);
+        } else if (event.isOf(Item.class)) {
+            appendCommitted(JournalRecord.ITEM, change, -1, ((Item) event.getEntity()).getId());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBulkChanged(BulkChangedEvent event) {
+        if (event.getEntityType() == Member.class) {
+            appendCommitted(JournalRecord.MEMBER, JournalRecord.BULK, -1, null);
+        } else if (event.getEntityType() == Team.class) {
+            appendCommitted(JournalRecord.TEAM, JournalRecord.BULK, -1, null);
+        } else if (event.getEntityType() == Item.class) {
+            appendCommitted(JournalRecord.ITEM, JournalRecord.BULK, -1, null);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMembersUpdated(MembersUpdatedEvent event) {
+        for (Long memberNo : event.getMemberNos()) {
+            appendCommitted(JournalRecord.MEMBER, JournalRecord.UPDATE, memberNo, null);
+        }
+    }
+
+    /**
+     * 커밋이 끝난 변경을 덧붙인다. 실패해도 던지지 않고 실패 수와 마지막 실패를 남긴다. (다음에 성공하면 failing = false)
+     */
+    private void appendCommitted(byte entity, byte change, long id, String key) {
+        try {
+            append(entity, change, id, key);
+            failing = false;
+        } catch (RuntimeException e) {
+            appendFailures.incrementAndGet();
+            failing = true;
+            lastFailure = e.getMessage();
+            log.error("change journal append failed. entity={} change={} id={} key={}", entity, change, id,
+                    key == null || key.length() <= 100 ? key : key.substring(0, 100) + "...", e);
+        }
+    }
+
+    public long appendFailures() {
+        return appendFailures.get();
+    }
+
+    // 마지막 덧붙이기가 실패했으면 true
+    public boolean isFailing() {
+        return failing;
+    }
+
+    public String lastFailure() {
+        return lastFailure;
+    }
+
+    private MappedByteBuffer mapForWrite(long base) throws IOException {
+        try (FileChannel channel = FileChannel.open(segmentFile(base),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // 예전에 다른 segment-size로 만든 파일이면 그 크기를 그대로 쓴다.
+            long size = Math.max(channel.size(), segmentSize);
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+    }
+
+    private ByteBuffer mapReadOnly(long base) throws IOException {
+        try (FileChannel channel = FileChannel.open(segmentFile(base), StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    private Path segmentFile(long base) {
+        return directory.resolve(String.format("%020d%s", base, SUFFIX));
+    }
+
+    @PreDestroy
+    @Override
+    public synchronized void close() {
+        current.force();
+    }
+}
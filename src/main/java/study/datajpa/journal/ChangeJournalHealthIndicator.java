@@ -0,0 +1,37 @@
+package study.datajpa.journal;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * ChangeJournal 상태 (/actuator/health 의 changeJournal)
+ * - 마지막 덧붙이기가 실패했으면 DOWN. 다음 덧붙이기가 성공하면 다시 UP.
+ * - 누적 실패 수는 change.journal.append.failures 메트릭으로도 본다. (잃은 레코드 수)
+ */
+@Component
+@ConditionalOnProperty(name = "member.journal.enabled", havingValue = "true")
+public class ChangeJournalHealthIndicator implements HealthIndicator {
+
+    private final ChangeJournal journal;
+
+    public ChangeJournalHealthIndicator(ChangeJournal journal, MeterRegistry registry) {
+        this.journal = journal;
+        FunctionCounter.builder("change.journal.append.failures", journal, ChangeJournal::appendFailures)
+                .register(registry);
+    }
+
+    @Override
+    public Health health() {
+        Health.Builder builder = journal.isFailing() ? Health.down() : Health.up();
+        builder.withDetail("endOffset", journal.endOffset())
+                .withDetail("appendFailures", journal.appendFailures());
+        if (journal.lastFailure() != null) {
+            builder.withDetail("lastFailure", journal.lastFailure());
+        }
+        return builder.build();
+    }
+}
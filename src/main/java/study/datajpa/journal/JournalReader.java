@@ -0,0 +1,64 @@
+package study.datajpa.journal;
+
+import java.nio.ByteBuffer;
+import java.util.Map;
+
+/**
+ * 저널을 오프셋부터 따라 읽는다. (스레드 하나에서만 사용)
+ * 소비자는 처리한 마지막 offset()을 저장해뒀다가 다시 시작할 때 그 오프셋으로 reader를 만들면 된다.
+ * 처음부터 다시 읽으면(replay) 파생 상태를 다시 만들 수 있다.
+ * 읽던 세그먼트가 보관 개수 제한으로 지워졌으면 건너뛰지 않고 JournalTruncatedException을 던진다. (레코드를 잃은 것을 소비자가 알도록)
+ */
+public class JournalReader {
+
+    @FunctionalInterface
+    public interface RecordHandler {
+        // record는 이 호출 안에서만 유효하다.
+        void onRecord(long offset, JournalRecord record);
+    }
+
+    private final ChangeJournal journal;
+    private final JournalRecord record = new JournalRecord();
+    private long offset;
+
+    JournalReader(ChangeJournal journal, long offset) {
+        this.journal = journal;
+        this.offset = offset;
+    }
+
+    // 다음에 읽을 오프셋
+    public long offset() {
+        return offset;
+    }
+
+    /**
+     * 쓰여진 레코드를 최대 maxRecords개 읽는다.
+     * @return 읽은 레코드 수 (0이면 아직 새 레코드 없음)
+     * @throws JournalTruncatedException offset()의 세그먼트가 이미 지워졌을 때 (offset()은 그대로)
+     */
+    public int poll(RecordHandler handler, int maxRecords) {
+        int count = 0;
+        while (count < maxRecords && offset < journal.endOffset()) {
+            Map.Entry<Long, ByteBuffer> segment = journal.segment(offset);
+            if (segment == null) {
+                throw new JournalTruncatedException(offset, journal.startOffset());
+            }
+            ByteBuffer buffer = segment.getValue();
+            int position = (int) (offset - segment.getKey());
+            if (position + JournalRecord.LENGTH_SIZE > buffer.capacity() || buffer.getInt(position) == 0) {
+                // 세그먼트 끝
+                Long next = journal.nextSegment(segment.getKey());
+                if (next == null) {
+                    break;
+                }
+                offset = next;
+                continue;
+            }
+            record.wrap(buffer, position);
+            handler.onRecord(offset, record);
+            offset += record.size();
+            count++;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,79 @@
+package study.datajpa.journal;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 저널 레코드 하나 (플라이웨이트)
+ * 세그먼트 버퍼의 위치만 가리키고 값은 읽을 때 버퍼에서 바로 꺼낸다. (복사 없음)
+ * -> 콜백 밖으로 들고 나가면 안된다. 다음 레코드를 읽을 때 재사용된다.
+ *
+ * 레이아웃 (빅엔디안)
+ * [int length][long timestamp][byte entity][byte change][long id][short keyLength][key bytes]
+ * - length : length 필드 자신을 뺀 나머지 길이. 0이면 아직 안 쓴 자리(세그먼트 끝)
+ * - id : Member, Team의 PK (없으면 -1)
+ * - key : 문자열 PK (Item)
+ */
+public class JournalRecord {
+
+    public static final byte MEMBER = 1;
+    public static final byte TEAM = 2;
+    public static final byte ITEM = 3;
+
+    public static final byte PERSIST = 1;
+    public static final byte UPDATE = 2;
+    public static final byte REMOVE = 3;
+    public static final byte BULK = 4; // 벌크 연산. 어떤 row인지 모름 (id = -1)
+
+    static final int LENGTH_SIZE = 4;
+    static final int HEADER_SIZE = 8 + 1 + 1 + 8 + 2;
+
+    private ByteBuffer buffer;
+    private int position;
+
+    JournalRecord wrap(ByteBuffer buffer, int position) {
+        this.buffer = buffer;
+        this.position = position;
+        return this;
+    }
+
+    public long timestamp() {
+        return buffer.getLong(position + LENGTH_SIZE);
+    }
+
+    public byte entity() {
+        return buffer.get(position + LENGTH_SIZE + 8);
+    }
+
+    public byte change() {
+        return buffer.get(position + LENGTH_SIZE + 9);
+    }
+
+    public long id() {
+        return buffer.getLong(position + LENGTH_SIZE + 10);
+    }
+
+    public int keyLength() {
+        return buffer.getShort(position + LENGTH_SIZE + 18);
+    }
+
+    // 문자열이 필요할 때만 만든다.
+    public String key() {
+        int length = keyLength();
+        if (length == 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.duplicate().position(position + LENGTH_SIZE + HEADER_SIZE).get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // 레코드 전체(length 포함)를 가리키는 읽기 전용 뷰 (복사 없음)
+    public ByteBuffer raw() {
+        return buffer.duplicate().position(position).limit(position + size()).slice().asReadOnlyBuffer();
+    }
+
+    int size() {
+        return LENGTH_SIZE + buffer.getInt(position);
+    }
+}
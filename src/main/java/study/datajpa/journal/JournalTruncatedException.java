@@ -0,0 +1,21 @@
+package study.datajpa.journal;
+
+import lombok.Getter;
+
+/**
+ * 읽으려는 오프셋의 세그먼트가 이미 지워졌을 때 (member.journal.max-segments)
+ * 그 사이 레코드는 잃었기 때문에 이어서 읽으면 안된다.
+ * -> 소비자는 파생 상태를 원본(테이블)에서 다시 만들고 startOffset 또는 endOffset부터 다시 읽는다.
+ */
+@Getter
+public class JournalTruncatedException extends RuntimeException {
+
+    private final long requestedOffset;
+    private final long startOffset;
+
+    public JournalTruncatedException(long requestedOffset, long startOffset) {
+        super("저널 앞부분이 지워졌습니다. requested=" + requestedOffset + " start=" + startOffset);
+        this.requestedOffset = requestedOffset;
+        this.startOffset = startOffset;
+    }
+}
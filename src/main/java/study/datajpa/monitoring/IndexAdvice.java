@@ -0,0 +1,25 @@
+package study.datajpa.monitoring;
+
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * 인덱스 제안 한 건
+ * covered : 이미 선언된 인덱스(또는 PK)의 앞부분과 컬럼이 같으면 true
+ */
+@Getter
+public class IndexAdvice {
+
+    private final String source;
+    private final String table;
+    private final List<String> columns;
+    private final boolean covered;
+
+    public IndexAdvice(String source, String table, List<String> columns, boolean covered) {
+        this.source = source;
+        this.table = table;
+        this.columns = columns;
+        this.covered = covered;
+    }
+}
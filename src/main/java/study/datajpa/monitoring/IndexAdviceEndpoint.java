@@ -0,0 +1,24 @@
+package study.datajpa.monitoring;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * GET /actuator/indexadvice
+ */
+@Component
+@Endpoint(id = "indexadvice")
+@RequiredArgsConstructor
+public class IndexAdviceEndpoint {
+
+    private final IndexAdvisor indexAdvisor;
+
+    @ReadOperation
+    public List<IndexAdvice> indexAdvice() {
+        return indexAdvisor.advise();
+    }
+}
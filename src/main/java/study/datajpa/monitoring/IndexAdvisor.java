@@ -0,0 +1,408 @@
+package study.datajpa.monitoring;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.hibernate.type.EntityType;
+import org.hibernate.type.Type;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.ApplicationContext;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.core.RepositoryInformation;
+import org.springframework.data.repository.query.parser.Part;
+import org.springframework.data.repository.query.parser.PartTree;
+import org.springframework.data.repository.support.Repositories;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 인덱스 어드바이저
+ * 1. 스프링 데이터 리포지토리 인터페이스 전부의 쿼리 메서드를 읽어서 조건/정렬 컬럼으로 인덱스를 제안한다.
+ *    - 메서드 이름 규칙 : PartTree(스프링 데이터가 메서드 이름을 파싱할 때 쓰는 것)로 조건과 정렬을 꺼낸다.
+ *    - @Query(JPQL) : from/join 절에서 별칭을 읽고, where절의 별칭.필드 비교와 order by를 꺼낸다.
+ *      필드 -> 컬럼은 하이버네이트 매핑(EntityPersister)으로 바꾼다.
+ *    - @Query(네이티브) : 아래 SQL과 같은 방식
+ * 2. 실제로 실행된 select SQL(QueryShapeLog)도 같은 방식으로 읽는다. (별칭 -> 테이블)
+ *    MemberJpaRepository처럼 인터페이스가 없는 리포지토리의 쿼리는 여기서 잡힌다.
+ * 3. 느린 쿼리 로그(SlowQueryLog)에서 실행계획이 풀스캔(tableScan)인 쿼리를 같이 보여준다.
+ * 컬럼 순서는 동등 조건 -> 범위 조건 -> 정렬 순서로 만든다.
+ *
+ * DB에 있는 인덱스(PK, 유니크 제약 포함)의 앞부분으로 이미 커버되면 covered = true
+ * 조회 : /actuator/indexadvice
+ * 제안한 인덱스의 효과는 measure()로 같은 쿼리를 인덱스 없이/있이 실행해서 비교한다.
+ */
+@Component
+public class IndexAdvisor {
+
+    private static final Pattern ALIAS = Pattern.compile("\\b(?:from|join|update)\\s+(?:fetch\\s+)?([\\w.]+)\\s+(?:as\\s+)?(\\w+)", Pattern.CASE_INSENSITIVE);
+    private static final Pattern PREDICATE = Pattern.compile("\\b(\\w+)\\.([\\w.]+)\\s*(>=|<=|<>|!=|=|>|<|\\bin\\b|\\blike\\b|\\bbetween\\b)", Pattern.CASE_INSENSITIVE);
+    private static final Pattern WHERE = Pattern.compile("\\bwhere\\b", Pattern.CASE_INSENSITIVE);
+    private static final Pattern ORDER_BY = Pattern.compile("\\border\\s+by\\b", Pattern.CASE_INSENSITIVE);
+    private static final Pattern CLAUSE_END = Pattern.compile("\\b(?:group\\s+by|having|limit|offset|fetch|for\\s+update)\\b", Pattern.CASE_INSENSITIVE);
+    private static final Pattern IDENTIFIER = Pattern.compile("\\w+");
+    private static final Pattern TABLE_SCAN = Pattern.compile("(\\w+)\\.tableScan", Pattern.CASE_INSENSITIVE);
+    private static final Set<String> KEYWORDS = Set.of("where", "left", "right", "inner", "outer", "join", "on", "with",
+            "order", "group", "having", "set", "cross", "limit", "fetch");
+
+    private final ApplicationContext applicationContext;
+    private final EntityManagerFactory entityManagerFactory;
+    private final ObjectProvider<DataSource> dataSource;
+    private final SlowQueryLog slowQueryLog;
+    private final QueryShapeLog queryShapeLog;
+
+    public IndexAdvisor(ApplicationContext applicationContext, EntityManagerFactory entityManagerFactory,
+                        ObjectProvider<DataSource> dataSource, SlowQueryLog slowQueryLog, QueryShapeLog queryShapeLog) {
+        this.applicationContext = applicationContext;
+        this.entityManagerFactory = entityManagerFactory;
+        this.dataSource = dataSource;
+        this.slowQueryLog = slowQueryLog;
+        this.queryShapeLog = queryShapeLog;
+    }
+
+    public List<IndexAdvice> advise() {
+        try (Connection connection = dataSource.getObject().getConnection()) {
+            return advise(connection.getMetaData());
+        } catch (SQLException e) {
+            throw new IllegalStateException("인덱스 정보를 읽을 수 없습니다.", e);
+        }
+    }
+
+    private List<IndexAdvice> advise(DatabaseMetaData metaData) {
+        Map<String, List<List<String>>> existing = new HashMap<>();
+        List<IndexAdvice> advices = new ArrayList<>();
+
+        Repositories repositories = new Repositories(applicationContext);
+        for (Class<?> domainType : repositories) {
+            Optional<RepositoryInformation> information = repositories.getRepositoryInformationFor(domainType);
+            if (information.isEmpty()) {
+                continue;
+            }
+            String repository = information.get().getRepositoryInterface().getSimpleName();
+            for (Method method : information.get().getQueryMethods()) {
+                addAdvices(advices, existing, metaData, repository + "." + method.getName(), columnsOf(method, domainType));
+            }
+        }
+
+        queryShapeLog.shapes().keySet()
+                .forEach(sql -> addAdvices(advices, existing, metaData, "sql : " + sql, columnsOfSql(sql)));
+
+        for (SlowQuery slowQuery : slowQueryLog.recent()) {
+            if (slowQuery.getPlan() == null) {
+                continue;
+            }
+            Matcher matcher = TABLE_SCAN.matcher(slowQuery.getPlan());
+            while (matcher.find()) {
+                advices.add(new IndexAdvice("slow query(" + slowQuery.getElapsedMillis() + "ms) : " + slowQuery.getSql(),
+                        matcher.group(1).toLowerCase(Locale.ROOT), List.of(), false));
+            }
+        }
+        return advices;
+    }
+
+    private void addAdvices(List<IndexAdvice> advices, Map<String, List<List<String>>> existing, DatabaseMetaData metaData,
+                            String source, Map<String, List<String>> columnsByTable) {
+        columnsByTable.forEach((table, columns) -> {
+            List<List<String>> indexes = existing.computeIfAbsent(table, key -> indexesOf(metaData, key));
+            advices.add(new IndexAdvice(source, table, columns, isCovered(indexes, columns)));
+        });
+    }
+
+    /**
+     * 제안한 인덱스가 있을 때와 없을 때 같은 쿼리(값이 들어간 select SQL)를 runs번씩 실행해서 평균 실행시간과 실행계획을 비교한다.
+     * 인덱스를 잠깐 만들었다가 지우기 때문에 운영 DB에서는 주의해서 사용한다. 이미 커버되는 인덱스가 있으면 비교할 수 없다.
+     */
+    public IndexMeasurement measure(String sql, String table, List<String> columns, int runs) {
+        if (!IDENTIFIER.matcher(table).matches() || columns.isEmpty() || !columns.stream().allMatch(column -> IDENTIFIER.matcher(column).matches())) {
+            throw new IllegalArgumentException("테이블, 컬럼 이름이 올바르지 않습니다.");
+        }
+        String index = "idx_advice_" + table + "_" + String.join("_", columns);
+        try (Connection connection = dataSource.getObject().getConnection();
+             Statement statement = connection.createStatement()) {
+            if (isCovered(indexesOf(connection.getMetaData(), table), columns)) {
+                throw new IllegalArgumentException("이미 인덱스가 있습니다. : " + table + " " + columns);
+            }
+            String planWithout = explain(statement, sql);
+            long without = averageMicros(statement, sql, runs);
+            statement.execute("create index " + index + " on " + table + " (" + String.join(", ", columns) + ")");
+            try {
+                String planWith = explain(statement, sql);
+                long with = averageMicros(statement, sql, runs);
+                return new IndexMeasurement(index, without, with, planWithout, planWith);
+            } finally {
+                statement.execute("drop index if exists " + index);
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("인덱스 비교 실패 : " + sql, e);
+        }
+    }
+
+    private static long averageMicros(Statement statement, String sql, int runs) throws SQLException {
+        // 첫 실행은 파싱, 캐시 적재 비용이 섞이니 버린다.
+        consume(statement, sql);
+        long start = System.nanoTime();
+        for (int i = 0; i < runs; i++) {
+            consume(statement, sql);
+        }
+        return (System.nanoTime() - start) / 1_000 / Math.max(1, runs);
+    }
+
+    private static void consume(Statement statement, String sql) throws SQLException {
+        try (ResultSet rs = statement.executeQuery(sql)) {
+            while (rs.next()) {
+                rs.getObject(1);
+            }
+        }
+    }
+
+    private static String explain(Statement statement, String sql) throws SQLException {
+        StringBuilder plan = new StringBuilder();
+        try (ResultSet rs = statement.executeQuery("EXPLAIN " + sql)) {
+            while (rs.next()) {
+                plan.append(rs.getString(1)).append('\n');
+            }
+        }
+        return plan.toString();
+    }
+
+    /**
+     * 테이블별 제안 컬럼 (조건이 없는 메서드는 빈 Map)
+     */
+    private Map<String, List<String>> columnsOf(Method method, Class<?> domainType) {
+        Query query = method.getAnnotation(Query.class);
+        if (query != null) {
+            return query.nativeQuery() ? columnsOfSql(query.value()) : columnsOfJpql(query.value());
+        }
+
+        PartTree tree;
+        try {
+            tree = new PartTree(method.getName(), domainType);
+        } catch (RuntimeException e) {
+            return Map.of(); // 메서드 이름 규칙이 아닌 메서드
+        }
+        Clauses clauses = new Clauses();
+        for (Part part : tree.getParts()) {
+            (part.getType() == Part.Type.SIMPLE_PROPERTY || part.getType() == Part.Type.IN ? clauses.equality : clauses.range)
+                    .add(column(domainType.getName(), part.getProperty().toDotPath()));
+        }
+        for (Sort.Order sortOrder : tree.getSort()) {
+            clauses.order.add(column(domainType.getName(), sortOrder.getProperty()));
+        }
+        return clauses.columnsByTable();
+    }
+
+    /**
+     * JPQL : 별칭 -> {엔티티 이름, 루트 엔티티부터의 경로}
+     * from Member m left join m.team t where t.name = :name -> m : {Member, ""}, t : {Member, "team"} -> team.name
+     */
+    Map<String, List<String>> columnsOfJpql(String jpql) {
+        Map<String, String[]> aliases = new HashMap<>();
+        Matcher alias = ALIAS.matcher(jpql);
+        while (alias.find()) {
+            String name = alias.group(2);
+            if (KEYWORDS.contains(name.toLowerCase(Locale.ROOT))) {
+                continue;
+            }
+            String target = alias.group(1);
+            int dot = target.indexOf('.');
+            if (dot < 0) {
+                aliases.put(name, new String[]{entityName(target), ""});
+            } else {
+                String[] parent = aliases.get(target.substring(0, dot));
+                if (parent != null) {
+                    aliases.put(name, new String[]{parent[0], path(parent[1], target.substring(dot + 1))});
+                }
+            }
+        }
+        return parse(jpql, (qualifier, property) -> {
+            String[] entity = aliases.get(qualifier);
+            return entity == null || entity[0] == null ? null : column(entity[0], path(entity[1], property));
+        });
+    }
+
+    /**
+     * SQL : 별칭(없으면 테이블 이름) -> 테이블
+     * from member member0_ left outer join team team1_ on ... where member0_.age=? -> member0_ : member
+     */
+    Map<String, List<String>> columnsOfSql(String sql) {
+        Map<String, String> aliases = new HashMap<>();
+        Matcher alias = ALIAS.matcher(sql);
+        while (alias.find()) {
+            String table = tableName(alias.group(1));
+            aliases.put(table, table);
+            if (!KEYWORDS.contains(alias.group(2).toLowerCase(Locale.ROOT))) {
+                aliases.put(alias.group(2).toLowerCase(Locale.ROOT), table);
+            }
+        }
+        return parse(sql, (qualifier, column) -> {
+            String table = aliases.get(qualifier.toLowerCase(Locale.ROOT));
+            return table == null || column.contains(".") ? null : new String[]{table, column.toLowerCase(Locale.ROOT)};
+        });
+    }
+
+    private static Map<String, List<String>> parse(String query, ColumnResolver resolver) {
+        Clauses clauses = new Clauses();
+        Matcher where = WHERE.matcher(query);
+        Matcher orderBy = ORDER_BY.matcher(query);
+        int orderByStart = orderBy.find() ? orderBy.start() : -1;
+        if (where.find()) {
+            int end = orderByStart > where.end() ? orderByStart : clauseEnd(query, where.end());
+            Matcher predicate = PREDICATE.matcher(query.substring(where.end(), end));
+            while (predicate.find()) {
+                String operator = predicate.group(3);
+                (operator.equals("=") || operator.equalsIgnoreCase("in") ? clauses.equality : clauses.range)
+                        .add(resolver.resolve(predicate.group(1), predicate.group(2)));
+            }
+        }
+        if (orderByStart >= 0) {
+            String items = query.substring(orderBy.end(), clauseEnd(query, orderBy.end()));
+            for (String item : items.split(",")) {
+                String expression = item.trim().split("\\s+")[0];
+                int dot = expression.indexOf('.');
+                if (dot > 0) {
+                    clauses.order.add(resolver.resolve(expression.substring(0, dot), expression.substring(dot + 1)));
+                }
+            }
+        }
+        return clauses.columnsByTable();
+    }
+
+    private static int clauseEnd(String query, int from) {
+        Matcher end = CLAUSE_END.matcher(query);
+        return end.find(from) ? end.start() : query.length();
+    }
+
+    private static String path(String parent, String property) {
+        return parent.isEmpty() ? property : parent + "." + property;
+    }
+
+    // JPQL 엔티티 이름(Member) -> 하이버네이트 엔티티 이름(study.datajpa.entity.Member)
+    private String entityName(String name) {
+        try {
+            return sessionFactory().getMetamodel().getImportedClassName(name);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 엔티티 필드 경로 -> {테이블, 컬럼} (매핑으로 찾지 못하면 null)
+     * - team.name : 연관 엔티티(Team)의 테이블, 컬럼
+     * - team, team.teamNo : 이 엔티티의 FK 컬럼
+     */
+    private String[] column(String entityName, String path) {
+        try {
+            AbstractEntityPersister persister = persister(entityName);
+            String[] properties = path.split("\\.");
+            for (int i = 0; i < properties.length; i++) {
+                String property = properties[i];
+                boolean last = i == properties.length - 1;
+                if (property.equals(persister.getIdentifierPropertyName())) {
+                    return last ? columnOf(persister, persister.getIdentifierColumnNames()) : null;
+                }
+                Type type = persister.getPropertyType(property);
+                if (last || !type.isEntityType()) {
+                    return last ? columnOf(persister, persister.getPropertyColumnNames(property)) : null;
+                }
+                AbstractEntityPersister associated = persister(((EntityType) type).getAssociatedEntityName());
+                if (i + 1 == properties.length - 1 && properties[i + 1].equals(associated.getIdentifierPropertyName())) {
+                    return columnOf(persister, persister.getPropertyColumnNames(property));
+                }
+                persister = associated;
+            }
+            return null;
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static String[] columnOf(AbstractEntityPersister persister, String[] columns) {
+        return columns.length == 0 ? null : new String[]{tableName(persister.getTableName()), columns[0].toLowerCase(Locale.ROOT)};
+    }
+
+    private AbstractEntityPersister persister(String entityName) {
+        return (AbstractEntityPersister) sessionFactory().getMetamodel().entityPersister(entityName);
+    }
+
+    private SessionFactoryImplementor sessionFactory() {
+        return entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+    }
+
+    // 스키마가 붙어있으면 뗀다. (public.member -> member)
+    private static String tableName(String name) {
+        return name.substring(name.lastIndexOf('.') + 1).toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * DB 메타데이터의 인덱스 (인덱스마다 컬럼 순서대로)
+     */
+    private static List<List<String>> indexesOf(DatabaseMetaData metaData, String table) {
+        Map<String, SortedMap<Short, String>> indexes = new LinkedHashMap<>();
+        try {
+            String name = metaData.storesUpperCaseIdentifiers() ? table.toUpperCase(Locale.ROOT) : table;
+            try (ResultSet rs = metaData.getIndexInfo(null, null, name, false, true)) {
+                while (rs.next()) {
+                    String indexName = rs.getString("INDEX_NAME");
+                    String column = rs.getString("COLUMN_NAME");
+                    if (indexName != null && column != null) {
+                        indexes.computeIfAbsent(indexName, key -> new TreeMap<>())
+                                .put(rs.getShort("ORDINAL_POSITION"), column.toLowerCase(Locale.ROOT));
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            return List.of();
+        }
+        List<List<String>> result = new ArrayList<>();
+        indexes.values().forEach(columns -> result.add(new ArrayList<>(columns.values())));
+        return result;
+    }
+
+    private static boolean isCovered(List<List<String>> indexes, List<String> columns) {
+        for (List<String> index : indexes) {
+            if (index.size() >= columns.size() && index.subList(0, columns.size()).equals(columns)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @FunctionalInterface
+    private interface ColumnResolver {
+        // 별칭, 필드(컬럼) -> {테이블, 컬럼} (모르면 null)
+        String[] resolve(String qualifier, String property);
+    }
+
+    private static class Clauses {
+
+        private final List<String[]> equality = new ArrayList<>();
+        private final List<String[]> range = new ArrayList<>();
+        private final List<String[]> order = new ArrayList<>();
+
+        Map<String, List<String>> columnsByTable() {
+            Map<String, List<String>> columnsByTable = new LinkedHashMap<>();
+            for (List<String[]> columns : List.of(equality, range, order)) {
+                for (String[] column : columns) {
+                    if (column == null) {
+                        continue;
+                    }
+                    List<String> tableColumns = columnsByTable.computeIfAbsent(column[0], key -> new ArrayList<>());
+                    if (!tableColumns.contains(column[1])) {
+                        tableColumns.add(column[1]);
+                    }
+                }
+            }
+            return columnsByTable;
+        }
+    }
+}
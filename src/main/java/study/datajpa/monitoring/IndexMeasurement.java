@@ -0,0 +1,24 @@
+package study.datajpa.monitoring;
+
+import lombok.Getter;
+
+/**
+ * 제안한 인덱스가 있을 때와 없을 때 같은 쿼리의 평균 실행시간, 실행계획 (IndexAdvisor.measure)
+ */
+@Getter
+public class IndexMeasurement {
+
+    private final String index;
+    private final long withoutIndexMicros;
+    private final long withIndexMicros;
+    private final String planWithoutIndex;
+    private final String planWithIndex;
+
+    public IndexMeasurement(String index, long withoutIndexMicros, long withIndexMicros, String planWithoutIndex, String planWithIndex) {
+        this.index = index;
+        this.withoutIndexMicros = withoutIndexMicros;
+        this.withIndexMicros = withIndexMicros;
+        this.planWithoutIndex = planWithoutIndex;
+        this.planWithIndex = planWithIndex;
+    }
+}
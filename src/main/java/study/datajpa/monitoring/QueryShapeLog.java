@@ -0,0 +1,52 @@
+package study.datajpa.monitoring;
+
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.JdbcEventListener;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 실행된 select 쿼리 모양 기록 (p6spy JdbcEventListener)
+ * 리포지토리 인터페이스만 읽어서는 알 수 없는 쿼리(MemberJpaRepository처럼 메서드 안에서 만든 JPQL 등)도 IndexAdvisor가 볼 수 있게 한다.
+ * - 모양(바인딩 전 SQL)마다 처음 실행된 SQL(값 포함)을 같이 남긴다. -> IndexAdvisor.measure()에서 그대로 실행해 볼 수 있다.
+ * - 최대 member.query-shapes.capacity개. 다 차면 새 모양은 버린다.
+ */
+@Component
+public class QueryShapeLog extends JdbcEventListener {
+
+    private final int capacity;
+    private final Map<String, String> shapes = new ConcurrentHashMap<>();
+
+    public QueryShapeLog(@Value("${member.query-shapes.capacity:500}") int capacity) {
+        this.capacity = capacity;
+    }
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        String sql = statementInformation.getSql();
+        if (e != null || sql == null || !isSelect(sql) || shapes.containsKey(sql) || shapes.size() >= capacity) {
+            return;
+        }
+        // 값이 들어간 SQL은 처음 한 번만 만든다.
+        shapes.putIfAbsent(sql, statementInformation.getSqlWithValues());
+    }
+
+    /**
+     * 바인딩 전 SQL -> 값이 들어간 SQL
+     */
+    public Map<String, String> shapes() {
+        return Map.copyOf(shapes);
+    }
+
+    private static boolean isSelect(String sql) {
+        int start = 0;
+        while (start < sql.length() && Character.isWhitespace(sql.charAt(start))) {
+            start++;
+        }
+        return sql.regionMatches(true, start, "select", 0, "select".length());
+    }
+}
@@ -0,0 +1,32 @@
+package study.datajpa.monitoring;
+
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * 느린 쿼리 한 건
+ * 실행계획(plan)은 쿼리가 끝난 뒤 별도 스레드에서 EXPLAIN으로 채운다.
+ */
+@Getter
+public class SlowQuery {
+
+    private final LocalDateTime executedAt;
+    private final long elapsedMillis;
+    private final String sql;
+    private final String sqlWithValues;
+    private final String error;
+    private volatile String plan;
+
+    public SlowQuery(long elapsedMillis, String sql, String sqlWithValues, String error) {
+        this.executedAt = LocalDateTime.now();
+        this.elapsedMillis = elapsedMillis;
+        this.sql = sql;
+        this.sqlWithValues = sqlWithValues;
+        this.error = error;
+    }
+
+    void setPlan(String plan) {
+        this.plan = plan;
+    }
+}
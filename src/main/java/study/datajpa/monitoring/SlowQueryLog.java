@@ -0,0 +1,107 @@
+package study.datajpa.monitoring;
+
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.JdbcEventListener;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 느린 쿼리 로그 (p6spy JdbcEventListener)
+ * 실행시간이 threshold를 넘은 쿼리의 SQL, 바인딩된 값, 실행시간을 링 버퍼(최근 capacity건)에 남기고
+ * select 쿼리는 EXPLAIN 결과도 같이 남긴다. -> 인덱스를 안타고 풀스캔하는 쿼리를 찾을 때 사용
+ * 조회 : /actuator/slowqueries
+ *
+ * - EXPLAIN은 쿼리를 실행한 스레드를 붙잡지 않도록 스레드 하나짜리 풀에서 실행한다. (큐가 차면 버린다)
+ * - DataSource에 이 리스너가 붙어있기 때문에 DataSource는 처음 EXPLAIN 할 때 가져온다. (순환 참조 방지)
+ *   EXPLAIN 스레드에서 실행된 쿼리는 다시 기록하지 않는다.
+ */
+@Slf4j
+@Component
+public class SlowQueryLog extends JdbcEventListener {
+
+    private static final String EXPLAIN_THREAD_NAME = "slow-query-explain";
+
+    private final ObjectProvider<DataSource> dataSource;
+    private final long thresholdNanos;
+    private final AtomicReferenceArray<SlowQuery> buffer;
+    private final AtomicLong sequence = new AtomicLong();
+    private final ThreadPoolExecutor explainExecutor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(100), r -> new Thread(r, EXPLAIN_THREAD_NAME), new ThreadPoolExecutor.DiscardPolicy());
+
+    public SlowQueryLog(ObjectProvider<DataSource> dataSource,
+                        @Value("${member.slow-query.threshold:100ms}") Duration threshold,
+                        @Value("${member.slow-query.capacity:100}") int capacity) {
+        this.dataSource = dataSource;
+        this.thresholdNanos = threshold.toNanos();
+        this.buffer = new AtomicReferenceArray<>(capacity);
+    }
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        if (timeElapsedNanos < thresholdNanos || EXPLAIN_THREAD_NAME.equals(Thread.currentThread().getName())) {
+            return;
+        }
+        String sqlWithValues = statementInformation.getSqlWithValues();
+        SlowQuery slowQuery = new SlowQuery(TimeUnit.NANOSECONDS.toMillis(timeElapsedNanos),
+                statementInformation.getSql(), sqlWithValues, e == null ? null : e.getMessage());
+        buffer.set((int) (sequence.getAndIncrement() % buffer.length()), slowQuery);
+        log.warn("slow query {}ms : {}", slowQuery.getElapsedMillis(), sqlWithValues);
+
+        if (sqlWithValues != null && sqlWithValues.trim().toLowerCase(Locale.ROOT).startsWith("select")) {
+            explainExecutor.execute(() -> slowQuery.setPlan(explain(sqlWithValues)));
+        }
+    }
+
+    /**
+     * 최근 것부터
+     */
+    public List<SlowQuery> recent() {
+        long last = sequence.get();
+        int size = (int) Math.min(last, buffer.length());
+        List<SlowQuery> result = new ArrayList<>(size);
+        for (long i = last - 1; i >= last - size; i--) {
+            SlowQuery slowQuery = buffer.get((int) (i % buffer.length()));
+            if (slowQuery != null) {
+                result.add(slowQuery);
+            }
+        }
+        return result;
+    }
+
+    private String explain(String sql) {
+        try (Connection connection = dataSource.getObject().getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("EXPLAIN " + sql)) {
+            StringBuilder plan = new StringBuilder();
+            while (rs.next()) {
+                plan.append(rs.getString(1)).append('\n');
+            }
+            return plan.toString();
+        } catch (Exception ex) {
+            return "EXPLAIN 실패 : " + ex.getMessage();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        explainExecutor.shutdownNow();
+    }
+}
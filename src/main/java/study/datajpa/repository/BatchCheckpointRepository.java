@@ -0,0 +1,20 @@
+package study.datajpa.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import study.datajpa.entity.BatchCheckpoint;
+
+import java.util.Set;
+
+public interface BatchCheckpointRepository extends JpaRepository<BatchCheckpoint, Long> {
+
+    @Query("select c.chunkStart from BatchCheckpoint c where c.jobName = :jobName")
+    Set<Long> findChunkStartsByJobName(@Param("jobName") String jobName);
+
+    // 잡을 처음부터 다시 돌리고 싶을 때
+    @Modifying
+    @Query("delete from BatchCheckpoint c where c.jobName = :jobName")
+    int deleteByJobName(@Param("jobName") String jobName);
+}
@@ -0,0 +1,30 @@
+package study.datajpa.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.annotation.AfterReturning;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import study.datajpa.entity.Member;
+import study.datajpa.event.BulkChangedEvent;
+
+/**
+ * 벌크성 쿼리는 엔티티 리스너를 거치지 않기 때문에
+ * 리포지토리의 bulk* 메서드가 끝나면 BulkChangedEvent를 대신 발행해준다.
+ * -> Member 벌크 연산을 추가할 때는 메서드 이름을 bulk로 시작하게 만들자.
+ * deleteAllInBatch, deleteAllByIdInBatch도 delete 쿼리 한 번으로 지우기 때문에 같이 처리한다.
+ */
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class BulkUpdateEventAspect {
+
+    private final ApplicationEventPublisher publisher;
+
+    @AfterReturning("execution(* study.datajpa.repository.MemberRepository.bulk*(..))" +
+            " || execution(* study.datajpa.repository.MemberJpaRepository.bulk*(..))" +
+            " || execution(* study.datajpa.repository.MemberRepository+.deleteAll*InBatch(..))")
+    public void afterMemberBulkUpdate() {
+        publisher.publishEvent(new BulkChangedEvent(Member.class));
+    }
+}
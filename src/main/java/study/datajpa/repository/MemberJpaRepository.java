@@ -30,6 +30,8 @@ public class MemberJpaRepository {
         return em.createQuery("select m from Member m", Member.class).getResultList();
     }
 
+    // 요청 모으기(BatchingLoader)를 거치지 않는다. 다른 스레드에서 모아서 조회하면 이 트랜잭션의 영속 엔티티가 아니게 된다.
+    // (MemberRepository.findCachedMemberDtoByIdIn 참고)
     public Optional<Member> findById(Long id) {
         Member member = em.find(Member.class, id);
         return Optional.ofNullable(member);
@@ -72,7 +74,7 @@ public class MemberJpaRepository {
      * 순수 JPA로 벌크성 쿼리
      */
     public int bulkAgePlus(int age) {
-        return em.createQuery("update Member m set m.age = m.age + 1 where m.age >= :age")
+        return em.createQuery("update Member m set m.age = m.age + 1, m.lastModifiedDate = current_timestamp where m.age >= :age")
                 .setParameter("age", age)
                 .executeUpdate();
     }
@@ -5,6 +5,7 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.*;
 import org.springframework.data.repository.query.Param;
+import study.datajpa.dto.CachedMemberDto;
 import study.datajpa.dto.MemberDto;
 import study.datajpa.dto.UsernameOnlyDto;
 import study.datajpa.entity.Member;
@@ -52,6 +53,7 @@ public interface MemberRepository extends JpaRepository<Member, Long>, MemberRep
      */
     List<Member> findByUsernameAndAgeGreaterThan(String username, int age);
 
+    // 자주 호출한다면 findTopKByAge() 사용 (메모리에 유지하는 상위 K명, 쿼리 없음)
     List<Member> findTop3ByOrderByAgeDesc();
 
     @Query("select m from Member m where m.username = :username and m.age = :age")
@@ -72,6 +74,11 @@ public interface MemberRepository extends JpaRepository<Member, Long>, MemberRep
     @Query("select m from Member m where m.username in :names")
     List<Member> findByNames(@Param("names") Collection<String> names);
 
+    // findByNames + 팀 (POST /members/batch는 팀 이름을 같이 내려준다)
+    @Query("select m from Member m where m.username in :names")
+    @EntityGraph(attributePaths = {"team"})
+    List<Member> findWithTeamByNames(@Param("names") Collection<String> names);
+
     /**
      * 반환타입은 유연하게 아무거나 사용할 수 있다.
      */
@@ -99,6 +106,31 @@ public interface MemberRepository extends JpaRepository<Member, Long>, MemberRep
 //    Slice<Member> findByAge(int age, Pageable pageable);
 //    List<Member> findByAge(int age, Pageable pageable);
 
+    // 요청 모으기 로더용 (MemberDtoCache의 BatchingLoader) - DTO로 바로 조회
+    // findById() 자체는 모으지 않는다. 배치는 로더의 워커 스레드에서 다른 영속성 컨텍스트로 조회하기 때문에
+    // 호출한 쪽에는 준영속 엔티티가 돌아간다. (변경 감지 안됨, 같은 트랜잭션의 1차 캐시와 다른 인스턴스, team 지연로딩 불가)
+    // -> 엔티티가 필요 없는 읽기 경로(GET /members/{id})만 DTO 단위로 모은다.
+    // 팀은 join으로 같이 조회해서 프록시를 건드리지 않는다. (팀 수정일도 ETag에 들어간다)
+    @Query("select new study.datajpa.dto.CachedMemberDto(m.memberNo, m.username, t.name, m.lastModifiedDate, t.lastModifiedDate)" +
+            " from Member m left join m.team t where m.memberNo in :ids")
+    List<CachedMemberDto> findCachedMemberDtoByIdIn(@Param("ids") Collection<Long> ids);
+
+    // 여러 멤버 한 번에 조회 (POST /members/batch)
+    @Query("select m from Member m left join fetch m.team where m.memberNo in :ids")
+    List<Member> findWithTeamByMemberNoIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * 팀 멤버 키셋(no offset) 페이징
+     * offset 방식은 뒤쪽 페이지로 갈수록 앞의 row를 다 읽고 버리기 때문에 느려진다.
+     * 마지막으로 조회한 memberNo 이후부터 조회하면 PK 인덱스를 타고 바로 시작 위치를 찾는다.
+     * -> 첫 페이지는 lastMemberNo에 0을 넘기고, pageable은 PageRequest.of(0, size)로 넘긴다. (정렬은 쿼리에 고정)
+     */
+    @Query("select m from Member m where m.team.teamNo = :teamNo and m.memberNo > :lastMemberNo order by m.memberNo asc")
+    Slice<Member> findTeamMembersAfter(@Param("teamNo") Long teamNo, @Param("lastMemberNo") Long lastMemberNo, Pageable pageable);
+
+    // 컬렉션을 초기화하지 않고 팀 멤버 수만 조회
+    long countByTeamTeamNo(Long teamNo);
+
     /**
      * 이런 벌크성 쿼리를 사용할 때는 영속성 컨텍스트를 잘 고려해야 한다.
      * 쿼리가 나가면서 DB의 데이터는 변경되었지만 영속성 컨텍스트는 변경된 걸 모른다.
@@ -108,8 +140,9 @@ public interface MemberRepository extends JpaRepository<Member, Long>, MemberRep
      * em.clear()
      * 근데 스프링 데이터 JPA에서는 @Modifying에 옵션을 넣어주면 굳이 내가 flush(), clear()를 하지 않아도 된다.
      */
+    // 벌크성 쿼리는 auditing(@LastModifiedDate)을 거치지 않으니 수정일도 같이 바꿔줘야 한다. (조건부 GET이 수정일을 보기 때문)
     @Modifying(clearAutomatically = true) // 순수 JPA에서 executeUpdate와 같은 역할을 한다. 이 어노테이션을 안붙여주면 getResultList 혹은 getSingleResult를 호출하게 된다
-    @Query("update Member m set m.age = m.age + 1 where m.age >= :age")
+    @Query("update Member m set m.age = m.age + 1, m.lastModifiedDate = current_timestamp where m.age >= :age")
     int bulkAgePlus(@Param("age") int age);
 
     /**
@@ -168,6 +201,10 @@ public interface MemberRepository extends JpaRepository<Member, Long>, MemberRep
 //    List<UsernameOnlyDto> findProjectionsByUsername(@Param("username") String username);
     <T> List<T> findProjectionsByUsername(@Param("username") String username, Class<T> type);
 
+    // 경로 변수 -> UsernameOnlyDto 바인딩용 (UsernameOnlyDtoConverter)
+    @Query("select new study.datajpa.dto.UsernameOnlyDto(m.username) from Member m where m.memberNo = :id")
+    Optional<UsernameOnlyDto> findUsernameOnlyById(@Param("id") Long id);
+
     /**
      * 네이티브 쿼리 => 안쓰는 게 좋다
      * 반환타입 지원이 몇가지 안됨(Object[], tuple, dto(스피링 데이터 인터페이스 Projection지원))
@@ -1,9 +1,16 @@
 package study.datajpa.repository;
 
+import org.springframework.data.domain.Sort;
+import study.datajpa.dto.MemberAgeDto;
+import study.datajpa.dto.MemberSearchCondition;
 import study.datajpa.entity.Member;
 
 import java.util.List;
 
 public interface MemberRepositoryCustom {
     List<Member> findMemberCustom();
+
+    List<Member> search(MemberSearchCondition condition, Sort sort);
+
+    List<MemberAgeDto> findTopKByAge();
 }
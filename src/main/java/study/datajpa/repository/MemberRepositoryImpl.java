@@ -1,11 +1,22 @@
 package study.datajpa.repository;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
+import org.springframework.util.StringUtils;
+import study.datajpa.cache.MemberAgeTopK;
+import study.datajpa.dto.MemberAgeDto;
+import study.datajpa.dto.MemberSearchCondition;
 import study.datajpa.entity.Member;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 //@RequiredArgsConstructor
 public class MemberRepositoryImpl implements MemberRepositoryCustom{
@@ -44,11 +55,31 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom{
      * @EnableJpaRepositories(basePackages="study.datajpa.repository", repositoryImplementationPostfix="Impl")
      */
 
+    private static final Map<String, String> SORT_PATHS = Map.of(
+            "memberNo", "m.memberNo",
+            "username", "m.username",
+            "age", "m.age",
+            "teamName", "t.name");
+
+    // ignoreCase는 문자열 필드에만 적용한다. (스프링 데이터 JPA의 Sort 처리와 같음)
+    private static final Set<String> STRING_SORT_PROPERTIES = Set.of("username", "teamName");
+
+    private static final int SEARCH_QUERY_CACHE_SIZE = 256;
+
     @PersistenceContext
     private final EntityManager em;
 
-    public MemberRepositoryImpl(EntityManager em) {
+    private final MemberAgeTopK memberAgeTopK;
+
+    // 검색 조건 조합 + 정렬 -> JPQL
+    // 정렬은 요청 값이라 조합이 많을 수 있다. -> 키를 정규화(orderBy)하고 크기도 제한한다.
+    private final Cache<String, String> searchQueryCache = Caffeine.newBuilder()
+            .maximumSize(SEARCH_QUERY_CACHE_SIZE)
+            .build();
+
+    public MemberRepositoryImpl(EntityManager em, MemberAgeTopK memberAgeTopK) {
         this.em = em;
+        this.memberAgeTopK = memberAgeTopK;
     }
 
     @Override
@@ -56,4 +87,106 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom{
         return em.createQuery("select m from Member m")
                 .getResultList();
     }
+
+    /**
+     * 동적 쿼리 검색
+     * 값이 있는 조건만 where절에 넣는다.
+     *
+     * 조건 조합(어떤 조건이 있는지 + 정렬)이 같으면 JPQL 문자열도 항상 같기 때문에 조합별로 한 번만 만들어서 캐시해둔다.
+     * 하이버네이트는 JPQL 문자열을 키로 SQL 변환 결과(쿼리 플랜)를 캐시하므로
+     * 같은 문자열을 재사용하면 쿼리 생성과 JPQL -> SQL 변환을 둘 다 건너뛴다.
+     * -> 그래서 값은 항상 파라미터로 바인딩하고 JPQL에 직접 넣지 않는다.
+     */
+    @Override
+    public List<Member> search(MemberSearchCondition condition, Sort sort) {
+        boolean hasUsername = StringUtils.hasText(condition.getUsername());
+        boolean hasAgeGoe = condition.getAgeGoe() != null;
+        boolean hasAgeLoe = condition.getAgeLoe() != null;
+        boolean hasTeamName = StringUtils.hasText(condition.getTeamName());
+
+        int shape = (hasUsername ? 1 : 0) | (hasAgeGoe ? 2 : 0) | (hasAgeLoe ? 4 : 0) | (hasTeamName ? 8 : 0);
+        String orderBy = orderBy(sort);
+        String jpql = searchQueryCache.get(shape + orderBy, key -> searchQuery(shape, orderBy));
+
+        TypedQuery<Member> query = em.createQuery(jpql, Member.class);
+        if (hasUsername) {
+            query.setParameter("username", condition.getUsername());
+        }
+        if (hasAgeGoe) {
+            query.setParameter("ageGoe", condition.getAgeGoe());
+        }
+        if (hasAgeLoe) {
+            query.setParameter("ageLoe", condition.getAgeLoe());
+        }
+        if (hasTeamName) {
+            query.setParameter("teamName", condition.getTeamName());
+        }
+        return query.getResultList();
+    }
+
+    private String searchQuery(int shape, String orderBy) {
+        StringBuilder jpql = new StringBuilder("select m from Member m left join fetch m.team t");
+        String prefix = " where ";
+        if ((shape & 1) != 0) {
+            jpql.append(prefix).append("m.username = :username");
+            prefix = " and ";
+        }
+        if ((shape & 2) != 0) {
+            jpql.append(prefix).append("m.age >= :ageGoe");
+            prefix = " and ";
+        }
+        if ((shape & 4) != 0) {
+            jpql.append(prefix).append("m.age <= :ageLoe");
+            prefix = " and ";
+        }
+        if ((shape & 8) != 0) {
+            jpql.append(prefix).append("t.name = :teamName");
+        }
+        return jpql.append(orderBy).toString();
+    }
+
+    /**
+     * 나이 많은 순 상위 K명 (member.top-age.k)
+     * findTop3ByOrderByAgeDesc처럼 매번 정렬 쿼리를 날리지 않고 MemberAgeTopK가 들고 있는 값을 반환한다.
+     */
+    @Override
+    public List<MemberAgeDto> findTopKByAge() {
+        return memberAgeTopK.top();
+    }
+
+    /**
+     * 정렬 필드는 허용된 것만 JPQL에 넣는다. (사용자 입력이 그대로 쿼리에 들어가지 않도록)
+     * - 같은 필드가 여러 번 오면 처음 것만 쓴다. (뒤의 것은 정렬 결과를 바꾸지 못함) -> 정렬 항목은 최대 SORT_PATHS 개수
+     * - ignoreCase : 문자열 필드는 lower()로 비교한다.
+     * - nullHandling : nulls first / nulls last
+     */
+    private String orderBy(Sort sort) {
+        if (sort == null || sort.isUnsorted()) {
+            return "";
+        }
+        StringBuilder orderBy = new StringBuilder();
+        Set<String> seen = new HashSet<>();
+        for (Sort.Order order : sort) {
+            String path = SORT_PATHS.get(order.getProperty());
+            if (path == null) {
+                throw new IllegalArgumentException("정렬할 수 없는 필드 : " + order.getProperty());
+            }
+            if (!seen.add(order.getProperty())) {
+                continue;
+            }
+            orderBy.append(orderBy.length() == 0 ? " order by " : ", ");
+            if (order.isIgnoreCase() && STRING_SORT_PROPERTIES.contains(order.getProperty())) {
+                orderBy.append("lower(").append(path).append(')');
+            } else {
+                orderBy.append(path);
+            }
+            orderBy.append(order.isAscending() ? " asc" : " desc");
+            if (order.getNullHandling() == Sort.NullHandling.NULLS_FIRST) {
+                orderBy.append(" nulls first");
+            } else if (order.getNullHandling() == Sort.NullHandling.NULLS_LAST) {
+                orderBy.append(" nulls last");
+            }
+        }
+        return orderBy.toString();
+    }
 }
@@ -0,0 +1,100 @@
+package study.datajpa.repository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.annotation.Before;
+import org.aspectj.lang.annotation.Aspect;
+import org.hibernate.Session;
+import org.hibernate.engine.spi.EntityEntry;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.engine.spi.Status;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 영속성 컨텍스트 크기 가드
+ * MemberController.init()처럼 한 트랜잭션 안에서 save를 수천 번 하면 1차 캐시가 계속 커지고
+ * flush 할 때마다 관리 중인 엔티티 전체를 변경감지 하느라 점점 느려진다.
+ * -> 리포지토리 메서드를 호출하기 전에 관리 중인 엔티티 수를 보고 maxEntities를 넘으면
+ *    - flush-clear : flush 후 clear (기본)
+ *    - detach-read-only : 읽기 전용(@QueryHints readOnly)으로 조회한 엔티티만 준영속으로 만든다. 그래도 넘으면 flush 후 clear
+ *
+ * 호출 전에 정리하기 때문에 방금 호출한 메서드가 반환한 엔티티는 항상 영속 상태다. (끝난 뒤에 정리하면 반환값이 바로 준영속이 된다)
+ *
+ * 주의. clear 되면 이전 호출에서 받아둔 엔티티는 준영속 상태가 된다. (이후 변경은 반영되지 않음)
+ * 그래서 기본은 꺼져있다. member.pc-guard.enabled=true 로 켠다.
+ * 동작하면 로그를 남기고 persistence.context.guard 카운터를 올린다.
+ */
+@Slf4j
+@Aspect
+@Component
+@ConditionalOnProperty(name = "member.pc-guard.enabled", havingValue = "true")
+public class PersistenceContextGuardAspect {
+
+    @PersistenceContext
+    private EntityManager em;
+
+    private final int maxEntities;
+    private final boolean detachReadOnly;
+    private final Counter flushClearCounter;
+    private final Counter detachCounter;
+
+    public PersistenceContextGuardAspect(MeterRegistry registry,
+                                         @Value("${member.pc-guard.max-entities:1000}") int maxEntities,
+                                         @Value("${member.pc-guard.mode:flush-clear}") String mode) {
+        this.maxEntities = maxEntities;
+        this.detachReadOnly = "detach-read-only".equals(mode);
+        this.flushClearCounter = Counter.builder("persistence.context.guard").tag("action", "flush-clear").register(registry);
+        this.detachCounter = Counter.builder("persistence.context.guard").tag("action", "detach-read-only").register(registry);
+    }
+
+    @Before("execution(* org.springframework.data.repository.Repository+.*(..))" +
+            " || execution(* study.datajpa.repository.MemberJpaRepository.*(..))" +
+            " || execution(* study.datajpa.repository.TeamJpaRepository.*(..))")
+    public void guard() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            return;
+        }
+        Session session = em.unwrap(Session.class);
+        int managed = session.getStatistics().getEntityCount();
+        if (managed <= maxEntities) {
+            return;
+        }
+
+        if (detachReadOnly) {
+            int detached = detachReadOnly(session);
+            if (detached > 0) {
+                detachCounter.increment();
+                log.info("persistence context guard : managed={} -> detached read-only={}", managed, detached);
+            }
+            if (session.getStatistics().getEntityCount() <= maxEntities) {
+                return;
+            }
+        }
+
+        em.flush();
+        em.clear();
+        flushClearCounter.increment();
+        log.info("persistence context guard : managed={} > {} -> flush, clear", managed, maxEntities);
+    }
+
+    private int detachReadOnly(Session session) {
+        List<Object> readOnly = new ArrayList<>();
+        for (Map.Entry<Object, EntityEntry> entry : ((SessionImplementor) session).getPersistenceContext().reentrantSafeEntityEntries()) {
+            if (entry.getValue().getStatus() == Status.READ_ONLY) {
+                readOnly.add(entry.getKey());
+            }
+        }
+        readOnly.forEach(session::detach);
+        return readOnly.size();
+    }
+}
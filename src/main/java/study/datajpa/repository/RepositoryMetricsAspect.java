@@ -0,0 +1,116 @@
+package study.datajpa.repository;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * MemberRepository 메서드별 메트릭
+ * 메서드 이름 규칙, @Query, 네이티브 쿼리, MemberRepositoryImpl(사용자 정의) 메서드 모두 리포지토리 프록시를 거치기 때문에 여기서 다 잡힌다.
+ *
+ * - repository.invocations : 응답시간 (percentile 히스토그램), outcome 태그로 성공(success)/예외(error)를 나눈다.
+ * - repository.rows : 반환한 row 수 (컬렉션/Page 크기, 단건은 1, 벌크성 쿼리는 변경된 row 수, 예외면 기록 안함)
+ * - repository.statements : 실행한 SQL 수 (N+1 확인용, 예외가 나도 그때까지 실행한 수를 기록한다)
+ *
+ * 메서드마다 Meter를 처음 한 번만 만들고 Method를 키로 재사용한다. -> 호출마다 태그 문자열을 만들지 않는다.
+ * 조회 : /actuator/metrics/repository.invocations?tag=method:findByAge(int,Pageable)&tag=outcome:error
+ */
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class RepositoryMetricsAspect {
+
+    private final MeterRegistry registry;
+    private final StatementCounter statementCounter;
+    private final Map<Method, MethodMeters> meters = new ConcurrentHashMap<>();
+
+    @Around("execution(* study.datajpa.repository.MemberRepository+.*(..))")
+    public Object record(ProceedingJoinPoint joinPoint) throws Throwable {
+        MethodMeters methodMeters = meters.computeIfAbsent(((MethodSignature) joinPoint.getSignature()).getMethod(), this::register);
+        long statementsBefore = statementCounter.current();
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            Object result = joinPoint.proceed();
+            methodMeters.rows.record(rows(result));
+            success = true;
+            return result;
+        } finally {
+            (success ? methodMeters.timer : methodMeters.errorTimer).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            methodMeters.statements.record(statementCounter.current() - statementsBefore);
+        }
+    }
+
+    private MethodMeters register(Method method) {
+        String name = method.getName() + Arrays.stream(method.getParameterTypes())
+                .map(Class::getSimpleName)
+                .collect(Collectors.joining(",", "(", ")"));
+        return new MethodMeters(
+                timer(name, "success"),
+                timer(name, "error"),
+                DistributionSummary.builder("repository.rows")
+                        .tag("method", name)
+                        .register(registry),
+                DistributionSummary.builder("repository.statements")
+                        .tag("method", name)
+                        .register(registry));
+    }
+
+    private Timer timer(String method, String outcome) {
+        return Timer.builder("repository.invocations")
+                .tag("method", method)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .publishPercentiles(0.5, 0.99)
+                .register(registry);
+    }
+
+    private static long rows(Object result) {
+        if (result == null) {
+            return 0;
+        }
+        if (result instanceof Collection) {
+            return ((Collection<?>) result).size();
+        }
+        if (result instanceof Slice) {
+            return ((Slice<?>) result).getNumberOfElements();
+        }
+        if (result instanceof Optional) {
+            return ((Optional<?>) result).isPresent() ? 1 : 0;
+        }
+        if (result instanceof Integer) {
+            return (Integer) result; // 벌크성 쿼리 : 변경된 row 수
+        }
+        return 1;
+    }
+
+    private static class MethodMeters {
+        private final Timer timer;
+        private final Timer errorTimer;
+        private final DistributionSummary rows;
+        private final DistributionSummary statements;
+
+        private MethodMeters(Timer timer, Timer errorTimer, DistributionSummary rows, DistributionSummary statements) {
+            this.timer = timer;
+            this.errorTimer = errorTimer;
+            this.rows = rows;
+            this.statements = statements;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package study.datajpa.repository;
+
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.JdbcEventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * 스레드별 실행된 SQL 수
+ * p6spy 스타터는 JdbcEventListener 빈을 자동으로 등록해준다.
+ * 리포지토리 메서드는 호출한 스레드에서 쿼리를 실행하기 때문에 호출 전후의 차이가 그 메서드가 실행한 쿼리 수다.
+ */
+@Component
+public class StatementCounter extends JdbcEventListener {
+
+    private static final ThreadLocal<long[]> COUNT = ThreadLocal.withInitial(() -> new long[1]);
+
+    @Override
+    public void onBeforeAnyExecute(StatementInformation statementInformation) {
+        COUNT.get()[0]++;
+    }
+
+    public long current() {
+        return COUNT.get()[0];
+    }
+}
@@ -0,0 +1,126 @@
+package study.datajpa.shard;
+
+import org.hibernate.dialect.Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.mapping.Column;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.hibernate.type.Type;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import study.datajpa.entity.Member;
+
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * 샤드의 member 테이블 정의를 Member 엔티티 매핑에서 만든다. (DDL을 따로 손으로 쓰면 엔티티와 달라진다)
+ * - 컬럼 : 하이버네이트 persister의 식별자/프로퍼티 컬럼 이름과 타입(Dialect 타입 이름)
+ *   길이는 하이버네이트 기본값(255)을 쓴다. 팀 테이블이 없으니 외래키는 만들지 않는다.
+ * - 인덱스 : Member의 @Table(indexes)
+ * - verify : 이미 있는 샤드 테이블의 컬럼이 엔티티와 다르면 시작할 때 실패한다.
+ */
+@Component
+@ConditionalOnProperty(name = "member.shard.enabled", havingValue = "true")
+public class MemberShardSchema {
+
+    private final String table;
+    // 컬럼 이름(소문자) -> SQL 타입
+    private final Map<String, String> columns = new LinkedHashMap<>();
+    private final String idColumn;
+
+    public MemberShardSchema(EntityManagerFactory entityManagerFactory) {
+        SessionFactoryImplementor sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        AbstractEntityPersister persister = (AbstractEntityPersister) sessionFactory.getMetamodel().entityPersister(Member.class);
+        Dialect dialect = sessionFactory.getJdbcServices().getDialect();
+
+        this.table = persister.getTableName();
+        this.idColumn = normalize(persister.getIdentifierColumnNames()[0]);
+        columns.put(idColumn, typeName(dialect, persister.getIdentifierType().sqlTypes(sessionFactory)[0]));
+        for (String property : persister.getPropertyNames()) {
+            Type type = persister.getPropertyType(property);
+            if (type.isCollectionType()) {
+                continue;
+            }
+            String[] names = persister.getPropertyColumnNames(property);
+            int[] sqlTypes = type.sqlTypes(sessionFactory);
+            for (int i = 0; i < names.length; i++) {
+                columns.put(normalize(names[i]), typeName(dialect, sqlTypes[i]));
+            }
+        }
+    }
+
+    private static String typeName(Dialect dialect, int sqlType) {
+        return dialect.getTypeName(sqlType, Column.DEFAULT_LENGTH, Column.DEFAULT_PRECISION, Column.DEFAULT_SCALE);
+    }
+
+    private static String normalize(String column) {
+        return column.toLowerCase(Locale.ROOT);
+    }
+
+    public String table() {
+        return table;
+    }
+
+    public Set<String> columnNames() {
+        return columns.keySet();
+    }
+
+    // 없는 테이블만 만들고, 있으면 verify로 확인한다.
+    public void create(JdbcTemplate shard) {
+        StringBuilder ddl = new StringBuilder("create table if not exists ").append(table).append(" (");
+        columns.forEach((column, type) -> ddl.append(column).append(' ').append(type).append(", "));
+        ddl.append("primary key (").append(idColumn).append("))");
+        shard.execute(ddl.toString());
+        for (Index index : Member.class.getAnnotation(Table.class).indexes()) {
+            shard.execute("create index if not exists " + index.name() + " on " + table + " (" + index.columnList() + ")");
+        }
+        verify(shard);
+    }
+
+    public void verify(JdbcTemplate shard) {
+        Set<String> actual = shard.execute((ConnectionCallback<Set<String>>) connection -> {
+            DatabaseMetaData metaData = connection.getMetaData();
+            Set<String> names = new TreeSet<>();
+            for (String name : List.of(table, table.toUpperCase(Locale.ROOT))) {
+                try (ResultSet rs = metaData.getColumns(null, null, name, null)) {
+                    while (rs.next()) {
+                        names.add(normalize(rs.getString("COLUMN_NAME")));
+                    }
+                }
+            }
+            return names;
+        });
+        Set<String> missing = difference(columns.keySet(), actual);
+        Set<String> unknown = difference(actual, columns.keySet());
+        if (!missing.isEmpty() || !unknown.isEmpty()) {
+            throw new IllegalStateException("샤드의 " + table + " 테이블이 Member 엔티티와 다릅니다. 없는 컬럼=" + missing + " 엔티티에 없는 컬럼=" + unknown);
+        }
+    }
+
+    // 저장소가 SQL에 직접 쓰는 컬럼이 엔티티에 있는지
+    public void requireColumns(Collection<String> used) {
+        Set<String> missing = difference(new ArrayList<>(used), columns.keySet());
+        if (!missing.isEmpty()) {
+            throw new IllegalStateException("Member 엔티티에 없는 컬럼을 사용합니다. : " + missing);
+        }
+    }
+
+    private static Set<String> difference(Collection<String> left, Collection<String> right) {
+        Set<String> result = new TreeSet<>(left);
+        result.removeAll(right);
+        return result;
+    }
+}
@@ -0,0 +1,13 @@
+package study.datajpa.shard;
+
+/**
+ * 새 멤버를 어느 샤드에 넣을지
+ * - MEMBER_NO : memberNo 해시로 정한다.
+ * - TEAM : teamNo 해시로 정한다. 같은 팀 멤버는 같은 샤드에 모인다. (팀 없는 멤버는 memberNo 해시)
+ *   memberNo % 샤드 수 = 샤드 번호 가 되도록 memberNo를 만든다.
+ * 어느 쪽이든 memberNo만으로 샤드를 알 수 있어서 id 조회는 샤드 하나만 본다.
+ * 샤드 수나 방식을 바꾸면 기존 데이터는 다시 나눠야 한다.
+ */
+public enum ShardKey {
+    MEMBER_NO, TEAM
+}
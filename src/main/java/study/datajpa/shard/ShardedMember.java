@@ -0,0 +1,27 @@
+package study.datajpa.shard;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.LocalDateTime;
+
+@Getter
+@ToString
+@EqualsAndHashCode(of = "memberNo")
+public class ShardedMember {
+
+    private final Long memberNo;
+    private final String username;
+    private final int age;
+    private final Long teamNo;
+    private final LocalDateTime createdDate;
+
+    public ShardedMember(Long memberNo, String username, int age, Long teamNo, LocalDateTime createdDate) {
+        this.memberNo = memberNo;
+        this.username = username;
+        this.age = age;
+        this.teamNo = teamNo;
+        this.createdDate = createdDate;
+    }
+}
@@ -0,0 +1,327 @@
+package study.datajpa.shard;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Member를 여러 DB(샤드)에 나눠서 저장 (member.shard.enabled=true 일 때만)
+ * DB 하나로 버틸 수 없을 때를 위한 저장소.
+ * 범위 : MemberRepository(JPA) 아래에 끼워 넣는 계층이 아니라 따로 쓰는 JDBC 저장소다. (/shard/members, ShardedMemberController)
+ *   JPA 엔티티(Member)와 MemberRepository는 기본 DB를 그대로 쓴다. (JPA를 여러 EntityManagerFactory로 나누면 리포지토리 계층 전체를 바꿔야 한다)
+ * - 테이블 : Member 엔티티 매핑에서 만든다. (MemberShardSchema) 이미 있는 테이블이 엔티티와 다르면 시작할 때 실패한다.
+ *   JDBC로 넣기 때문에 auditing을 거치지 않는다. (created_by, updated_by는 null)
+ *
+ * - memberNo : 첫 번째 샤드의 시퀀스에서 BLOCK_SIZE 개씩 블록으로 받아서 메모리에서 나눠준다. (샤드 전체에서 유일)
+ * - 샤드 고르기 (ShardKey)
+ *   MEMBER_NO : memberNo 해시 % 샤드 수
+ *   TEAM : teamNo 해시 % 샤드 수. memberNo = id * 샤드 수 + 샤드 번호 로 만들어서 memberNo만으로 샤드를 알 수 있게 한다.
+ * - id 조회, 삭제 : shardOf(memberNo) -> 샤드 하나만 조회
+ * - 목록(findAll, findByAge, findByTeamNo) : 모든 샤드에 동시에 조회(scatter)하고 정렬 순서대로 k-way 병합(gather)한다.
+ *   page번째 페이지를 만들려면 각 샤드에서 (page + 1) * size 개씩 가져와야 한다. -> 앞쪽 페이지 위주로 사용
+ *   (TEAM 방식의 findByTeamNo는 샤드 하나만 보고 offset/limit을 그대로 쓴다)
+ * - 정렬 : memberNo, username, age 만 가능하고 항상 memberNo를 마지막 정렬 조건으로 붙인다. (샤드 간 순서를 확정하기 위해)
+ *
+ * member.shard.urls=jdbc:h2:mem:shard0;DB_CLOSE_DELAY=-1,jdbc:h2:mem:shard1;DB_CLOSE_DELAY=-1
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "member.shard.enabled", havingValue = "true")
+public class ShardedMemberStore implements Closeable {
+
+    private static final Map<String, String> SORT_COLUMNS = Map.of(
+            "memberNo", "member_id",
+            "username", "username",
+            "age", "age");
+
+    static final int BLOCK_SIZE = 1000;
+
+    private static final String COLUMNS = "member_id, username, age, team_no, created_date";
+
+    private static final RowMapper<ShardedMember> ROW_MAPPER = (rs, rowNum) -> {
+        long teamNo = rs.getLong("team_no");
+        boolean noTeam = rs.wasNull();
+        Timestamp createdDate = rs.getTimestamp("created_date");
+        return new ShardedMember(rs.getLong("member_id"), rs.getString("username"), rs.getInt("age"),
+                noTeam ? null : teamNo, createdDate == null ? null : createdDate.toLocalDateTime());
+    };
+
+    private final List<DataSource> dataSources;
+    private final List<JdbcTemplate> shards;
+    private final ShardKey shardKey;
+    private final ExecutorService executor;
+    // 지금 나눠주고 있는 memberNo 블록 [nextId, blockEnd)
+    private long nextId;
+    private long blockEnd;
+
+    public ShardedMemberStore(@Value("${member.shard.urls}") List<String> urls,
+                              @Value("${member.shard.username:sa}") String username,
+                              @Value("${member.shard.password:}") String password,
+                              @Value("${member.shard.key:MEMBER_NO}") ShardKey shardKey,
+                              MemberShardSchema schema) {
+        if (urls.isEmpty()) {
+            throw new IllegalArgumentException("member.shard.urls가 비어있습니다.");
+        }
+        this.dataSources = urls.stream()
+                .map(url -> DataSourceBuilder.create().url(url).username(username).password(password).build())
+                .collect(Collectors.toList());
+        this.shards = dataSources.stream().map(JdbcTemplate::new).collect(Collectors.toList());
+        this.shardKey = shardKey;
+        this.executor = Executors.newFixedThreadPool(urls.size(), runnable -> {
+            Thread thread = new Thread(runnable, "member-shard");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // 아래 SQL이 쓰는 컬럼이 엔티티에서 빠지거나 이름이 바뀌면 여기서 실패한다.
+        schema.requireColumns(List.of("member_id", "username", "age", "team_no", "created_date", "last_modified_date"));
+        if (!"member".equalsIgnoreCase(schema.table())) {
+            throw new IllegalStateException("Member 테이블 이름이 바뀌었습니다. : " + schema.table());
+        }
+        shards.forEach(schema::create);
+        shards.get(0).execute("create sequence if not exists member_no_block_seq");
+        log.info("member shards={} key={}", urls.size(), shardKey);
+    }
+
+    public int shardCount() {
+        return shards.size();
+    }
+
+    public int shardOf(Long memberNo) {
+        if (shardKey == ShardKey.TEAM) {
+            return (int) Math.floorMod(memberNo, (long) shards.size());
+        }
+        return Math.floorMod(hash(memberNo), shards.size());
+    }
+
+    public ShardedMember save(String username, int age, Long teamNo) {
+        long id = nextId();
+        long memberNo;
+        if (shardKey == ShardKey.TEAM) {
+            int shard = Math.floorMod(teamNo != null ? hash(teamNo) : hash(id), shards.size());
+            memberNo = id * shards.size() + shard;
+        } else {
+            memberNo = id;
+        }
+        JdbcTemplate jdbc = shards.get(shardOf(memberNo));
+        LocalDateTime now = LocalDateTime.now();
+        jdbc.update("insert into member (member_id, username, age, team_no, created_date, last_modified_date) values (?, ?, ?, ?, ?, ?)",
+                memberNo, username, age, teamNo, Timestamp.valueOf(now), Timestamp.valueOf(now));
+        return new ShardedMember(memberNo, username, age, teamNo, now);
+    }
+
+    private synchronized long nextId() {
+        if (nextId == blockEnd) {
+            Long block = shards.get(0).queryForObject("select next value for member_no_block_seq", Long.class);
+            nextId = block * BLOCK_SIZE;
+            blockEnd = nextId + BLOCK_SIZE;
+        }
+        return nextId++;
+    }
+
+    // 연속된 memberNo가 샤드에 고르게 퍼지도록 비트를 섞는다. (murmur3 fmix64)
+    static int hash(long value) {
+        long h = value;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return (int) h;
+    }
+
+    public Optional<ShardedMember> findById(Long memberNo) {
+        return shards.get(shardOf(memberNo))
+                .query("select " + COLUMNS + " from member where member_id = ?", ROW_MAPPER, memberNo)
+                .stream().findFirst();
+    }
+
+    public boolean deleteById(Long memberNo) {
+        return shards.get(shardOf(memberNo)).update("delete from member where member_id = ?", memberNo) > 0;
+    }
+
+    public long count() {
+        return scatter(allShards(), jdbc -> jdbc.queryForObject("select count(*) from member", Long.class))
+                .stream().mapToLong(Long::longValue).sum();
+    }
+
+    public Page<ShardedMember> findAll(Pageable pageable) {
+        return findPage(allShards(), "", new Object[0], pageable);
+    }
+
+    public Page<ShardedMember> findByAge(int age, Pageable pageable) {
+        return findPage(allShards(), " where age = ?", new Object[]{age}, pageable);
+    }
+
+    public Page<ShardedMember> findByTeamNo(Long teamNo, Pageable pageable) {
+        List<Integer> targets = shardKey == ShardKey.TEAM
+                ? List.of(Math.floorMod(hash(teamNo), shards.size()))
+                : allShards();
+        return findPage(targets, " where team_no = ?", new Object[]{teamNo}, pageable);
+    }
+
+    private Page<ShardedMember> findPage(List<Integer> targets, String where, Object[] args, Pageable pageable) {
+        Sort sort = pageable.getSort();
+        String orderBy = orderBy(sort);
+        long total = scatter(targets, jdbc -> jdbc.queryForObject("select count(*) from member" + where, Long.class, args))
+                .stream().mapToLong(Long::longValue).sum();
+
+        if (pageable.isUnpaged()) {
+            List<List<ShardedMember>> results = scatter(targets, jdbc -> jdbc.query("select " + COLUMNS + " from member" + where + orderBy, ROW_MAPPER, args));
+            return new PageImpl<>(merge(results, comparator(sort), 0, Integer.MAX_VALUE), pageable, total);
+        }
+
+        // 샤드 하나면 offset, limit을 DB에 그대로 맡긴다.
+        if (targets.size() == 1) {
+            List<ShardedMember> content = shards.get(targets.get(0)).query(
+                    "select " + COLUMNS + " from member" + where + orderBy + " limit " + pageable.getPageSize() + " offset " + pageable.getOffset(),
+                    ROW_MAPPER, args);
+            return new PageImpl<>(content, pageable, total);
+        }
+
+        long limit = pageable.getOffset() + pageable.getPageSize();
+        List<List<ShardedMember>> results = scatter(targets, jdbc -> jdbc.query(
+                "select " + COLUMNS + " from member" + where + orderBy + " limit " + limit, ROW_MAPPER, args));
+        List<ShardedMember> content = merge(results, comparator(sort), pageable.getOffset(), pageable.getPageSize());
+        return new PageImpl<>(content, pageable, total);
+    }
+
+    private <T> List<T> scatter(List<Integer> targets, Function<JdbcTemplate, T> query) {
+        List<CompletableFuture<T>> futures = targets.stream()
+                .map(shard -> CompletableFuture.supplyAsync(() -> query.apply(shards.get(shard)), executor))
+                .collect(Collectors.toList());
+        return futures.stream().map(CompletableFuture::join).collect(Collectors.toList());
+    }
+
+    /**
+     * 샤드별로 정렬된 결과를 k-way 병합한다. (샤드마다 커서 하나씩 우선순위 큐에 넣고 가장 앞선 것부터 꺼낸다)
+     * offset개는 버리고 size개만 모은다.
+     */
+    static List<ShardedMember> merge(List<List<ShardedMember>> sorted, Comparator<ShardedMember> comparator, long offset, int size) {
+        PriorityQueue<Cursor> queue = new PriorityQueue<>(Math.max(1, sorted.size()), (a, b) -> comparator.compare(a.current(), b.current()));
+        for (List<ShardedMember> rows : sorted) {
+            if (!rows.isEmpty()) {
+                queue.add(new Cursor(rows));
+            }
+        }
+        List<ShardedMember> content = new ArrayList<>(Math.min(size, 1024));
+        long skipped = 0;
+        while (!queue.isEmpty() && content.size() < size) {
+            Cursor cursor = queue.poll();
+            if (skipped < offset) {
+                skipped++;
+            } else {
+                content.add(cursor.current());
+            }
+            if (cursor.advance()) {
+                queue.add(cursor);
+            }
+        }
+        return content;
+    }
+
+    private static class Cursor {
+
+        private final List<ShardedMember> rows;
+        private int index;
+
+        Cursor(List<ShardedMember> rows) {
+            this.rows = rows;
+        }
+
+        ShardedMember current() {
+            return rows.get(index);
+        }
+
+        boolean advance() {
+            return ++index < rows.size();
+        }
+    }
+
+    // SQL의 정렬과 병합할 때의 정렬이 같아야 한다. (H2는 null을 가장 작은 값으로 정렬한다)
+    private static String orderBy(Sort sort) {
+        StringBuilder orderBy = new StringBuilder(" order by ");
+        for (Sort.Order order : sort) {
+            orderBy.append(column(order.getProperty())).append(order.isAscending() ? " asc" : " desc").append(", ");
+        }
+        return orderBy.append("member_id asc").toString();
+    }
+
+    static Comparator<ShardedMember> comparator(Sort sort) {
+        Comparator<ShardedMember> comparator = (a, b) -> 0;
+        for (Sort.Order order : sort) {
+            column(order.getProperty());
+            Comparator<ShardedMember> next;
+            switch (order.getProperty()) {
+                case "username":
+                    next = Comparator.comparing(ShardedMember::getUsername, Comparator.nullsFirst(Comparator.naturalOrder()));
+                    break;
+                case "age":
+                    next = Comparator.comparingInt(ShardedMember::getAge);
+                    break;
+                default:
+                    next = Comparator.comparing(ShardedMember::getMemberNo);
+            }
+            comparator = comparator.thenComparing(order.isAscending() ? next : next.reversed());
+        }
+        return comparator.thenComparing(ShardedMember::getMemberNo);
+    }
+
+    public static boolean sortable(String property) {
+        return SORT_COLUMNS.containsKey(property);
+    }
+
+    // 정렬 필드는 허용된 것만 SQL에 넣는다.
+    private static String column(String property) {
+        String column = SORT_COLUMNS.get(property);
+        if (column == null) {
+            throw new IllegalArgumentException("정렬할 수 없는 필드 : " + property);
+        }
+        return column;
+    }
+
+    private List<Integer> allShards() {
+        return IntStream.range(0, shards.size()).boxed().collect(Collectors.toList());
+    }
+
+    @PreDestroy
+    @Override
+    public void close() {
+        executor.shutdownNow();
+        for (DataSource dataSource : dataSources) {
+            if (dataSource instanceof Closeable) {
+                try {
+                    ((Closeable) dataSource).close();
+                } catch (IOException e) {
+                    log.warn("shard datasource close failed", e);
+                }
+            }
+        }
+    }
+}
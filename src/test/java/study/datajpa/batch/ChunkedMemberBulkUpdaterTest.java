@@ -0,0 +1,125 @@
+package study.datajpa.batch;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class ChunkedMemberBulkUpdaterTest {
+
+    @Autowired
+    ChunkedMemberBulkUpdater chunkedMemberBulkUpdater;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    EntityManager em;
+
+    @AfterEach
+    void cleanUp() {
+        memberRepository.deleteAllInBatch();
+    }
+
+    /**
+     * 청크 업데이트가 도는 동안 다른 스레드(writer)가 같은 테이블의 한 행을 계속 수정하고,
+     * 또 다른 스레드(reader)가 다른 한 행을 findLockByUsername(PESSIMISTIC_WRITE)으로 계속 잠근다.
+     * 범위마다 커밋하기 때문에 한 번에 기다리는 시간은 범위 하나 정도여야 한다. (전체 업데이트 시간이 아니라)
+     * reader는 락을 잡은 트랜잭션에서 이미 커밋된 범위 수(age = 21인 행 수)도 같이 읽는다.
+     * -> 시간과 상관없이 락을 잡을 때마다 청크 경계(50의 배수)에 있어야 하고, 중간 상태를 여러 번 봐야 한다.
+     */
+    @Test
+    void concurrentWriterWaitsAtMostOneChunk() throws Exception {
+        // given : 50건씩 10개 범위, 범위 사이 200ms -> 전체는 1.8초 이상
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            members.add(memberRepository.save(Member.builder()
+                    .username("member" + i)
+                    .age(20)
+                    .build()));
+        }
+        long target = members.get(250).getMemberNo();
+        String lockTarget = members.get(260).getUsername();
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+
+        // when
+        long started = System.nanoTime();
+        CompletableFuture<Integer> update = CompletableFuture.supplyAsync(() ->
+                chunkedMemberBulkUpdater.bulkAgePlus(20, 50, Duration.ofMillis(200)));
+        CompletableFuture<List<Long>> writer = CompletableFuture.supplyAsync(() -> {
+            List<Long> waits = new ArrayList<>();
+            while (!update.isDone()) {
+                String username = "writer" + waits.size();
+                long start = System.nanoTime();
+                tx.executeWithoutResult(status -> em.createQuery("update Member m set m.username = :username where m.memberNo = :memberNo")
+                        .setParameter("username", username)
+                        .setParameter("memberNo", target)
+                        .executeUpdate());
+                waits.add(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            }
+            return waits;
+        });
+        CompletableFuture<List<long[]>> reader = CompletableFuture.supplyAsync(() -> {
+            // {락을 잡기까지 걸린 시간(ms), 그때 커밋되어 있던 age = 21 행 수}
+            List<long[]> locks = new ArrayList<>();
+            while (!update.isDone()) {
+                long start = System.nanoTime();
+                long[] lock = tx.execute(status -> {
+                    List<Member> locked = memberRepository.findLockByUsername(lockTarget);
+                    long wait = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                    Long committed = em.createQuery("select count(m) from Member m where m.age = 21", Long.class)
+                            .getSingleResult();
+                    assertThat(locked).hasSize(1);
+                    return new long[]{wait, committed};
+                });
+                locks.add(lock);
+            }
+            return locks;
+        });
+        int updated = update.get(30, TimeUnit.SECONDS);
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+        List<Long> waits = writer.get(30, TimeUnit.SECONDS);
+        List<long[]> locks = reader.get(30, TimeUnit.SECONDS);
+
+        // then : 업데이트 중에 writer가 여러 번 끼어들었고, 한 번도 업데이트 전체를 기다리지 않았다.
+        long maxWait = waits.stream().mapToLong(Long::longValue).max().orElse(0);
+        System.out.println("writer " + waits.size() + "번, 최대 대기 " + maxWait + "ms, 업데이트 " + elapsedMillis + "ms");
+        assertThat(elapsedMillis).isGreaterThanOrEqualTo(1800);
+        assertThat(waits).hasSizeGreaterThanOrEqualTo(5);
+        assertThat(maxWait).isLessThan(1000);
+
+        // reader : 락을 잡을 때 본 상태는 항상 범위 단위로 커밋된 상태이고, 업데이트 중간 상태를 여러 번 봤다.
+        // (업데이트 전체가 한 트랜잭션이었다면 0 아니면 500만 보였을 것이다)
+        assertThat(locks).extracting(lock -> lock[1]).allMatch(committed -> committed % 50 == 0);
+        assertThat(locks.stream().map(lock -> lock[1]).filter(committed -> committed > 0 && committed < 500).distinct().count())
+                .isGreaterThanOrEqualTo(3);
+        // 한 번 기다린 시간은 범위 하나(+ 쉬는 시간) 수준이지 업데이트 전체가 아니다. (비율로 비교)
+        long maxLockWait = locks.stream().mapToLong(lock -> lock[0]).max().orElse(0);
+        assertThat(maxLockWait).isLessThan(elapsedMillis / 3);
+
+        // 두 쪽의 수정이 모두 남아있다.
+        assertThat(updated).isEqualTo(500);
+        assertThat(memberRepository.findAll()).allMatch(m -> m.getAge() == 21);
+        assertThat(memberRepository.findById(target)).get()
+                .extracting(Member::getUsername)
+                .isEqualTo("writer" + (waits.size() - 1));
+    }
+}
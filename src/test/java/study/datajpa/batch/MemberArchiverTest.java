@@ -0,0 +1,108 @@
+package study.datajpa.batch;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.TeamRepository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class MemberArchiverTest {
+
+    @Autowired
+    MemberArchiver memberArchiver;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    TeamRepository teamRepository;
+
+    @PersistenceContext
+    EntityManager em;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    // 보관 테이블은 리포지토리가 없어서 직접 지운다.
+    @AfterEach
+    void cleanUp() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                em.createQuery("delete from MemberArchive a").executeUpdate());
+        memberRepository.deleteAllInBatch();
+        teamRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void archiveTeamMembers() {
+        // given
+        Team teamA = teamRepository.save(Team.builder()
+                .name("teamA")
+                .build());
+        for (int i = 0; i < 5; i++) {
+            memberRepository.save(Member.builder()
+                    .username("member" + i)
+                    .age(10)
+                    .team(teamA)
+                    .build());
+        }
+        memberRepository.save(Member.builder()
+                .username("noTeam")
+                .age(10)
+                .build());
+
+        // when
+        int deleted = memberArchiver.bulkDeleteByTeam(teamA.getTeamNo(), true);
+
+        // then
+        long archived = em.createQuery("select count(a) from MemberArchive a where a.teamNo = :teamNo", Long.class)
+                .setParameter("teamNo", teamA.getTeamNo())
+                .getSingleResult();
+        assertThat(deleted).isEqualTo(5);
+        assertThat(archived).isEqualTo(5);
+        assertThat(memberRepository.count()).isEqualTo(1);
+    }
+
+    @Test
+    void archiveMembersCreatedBefore() throws Exception {
+        // given : cutoff 전에 3명, 후에 2명
+        for (int i = 0; i < 3; i++) {
+            memberRepository.save(Member.builder()
+                    .username("old" + i)
+                    .age(10)
+                    .build());
+        }
+        Thread.sleep(10);
+        LocalDateTime cutoff = LocalDateTime.now();
+        Thread.sleep(10);
+        for (int i = 0; i < 2; i++) {
+            memberRepository.save(Member.builder()
+                    .username("new" + i)
+                    .age(10)
+                    .build());
+        }
+
+        // when
+        int deleted = memberArchiver.bulkDeleteCreatedBefore(cutoff, true);
+
+        // then
+        List<String> archived = em.createQuery("select a.username from MemberArchive a", String.class)
+                .getResultList();
+        assertThat(deleted).isEqualTo(3);
+        assertThat(archived).containsExactlyInAnyOrder("old0", "old1", "old2");
+        assertThat(memberRepository.findAll()).extracting(Member::getUsername)
+                .containsExactlyInAnyOrder("new0", "new1");
+    }
+}
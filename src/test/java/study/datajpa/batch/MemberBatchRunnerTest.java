@@ -0,0 +1,82 @@
+package study.datajpa.batch;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.BatchCheckpointRepository;
+import study.datajpa.repository.MemberRepository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 청크마다 별도 스레드, 별도 트랜잭션으로 돌기 때문에 @Transactional을 붙이면 안된다. (테스트 트랜잭션의 데이터가 안보임)
+ */
+@SpringBootTest
+class MemberBatchRunnerTest {
+
+    @Autowired
+    MemberBatchRunner memberBatchRunner;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    BatchCheckpointRepository checkpointRepository;
+
+    @AfterEach
+    void cleanUp() {
+        checkpointRepository.deleteAllInBatch();
+        memberRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void runAndRestart() {
+        // given
+        for (int i = 0; i < 25; i++) {
+            memberRepository.save(Member.builder()
+                    .username("member" + i)
+                    .age(10)
+                    .build());
+        }
+
+        // when
+        MemberBatchResult first = memberBatchRunner.run("usernameSuffix", 10, 2,
+                MemberChunkProcessor.forEachMember(m -> m.changeUsername(m.getUsername() + "!")));
+        MemberBatchResult restart = memberBatchRunner.run("usernameSuffix", 10, 2,
+                MemberChunkProcessor.forEachMember(m -> m.changeUsername(m.getUsername() + "!")));
+
+        // then
+        for (MemberBatchResult.ChunkResult chunk : first.getChunks()) {
+            System.out.println("chunk [" + chunk.getChunkStart() + ", " + chunk.getChunkEnd() + ") : "
+                    + chunk.getProcessedCount() + "건, " + chunk.getElapsedMillis() + "ms");
+        }
+        assertThat(first.isCompleted()).isTrue();
+        assertThat(first.getProcessedCount()).isEqualTo(25);
+        assertThat(restart.getChunks()).isEmpty(); // 이미 끝난 청크는 건너뛴다.
+        assertThat(restart.getSkippedChunks()).isEqualTo(first.getChunks().size());
+    }
+
+    @Test
+    void setBasedUpdate() {
+        // given
+        for (int i = 0; i < 25; i++) {
+            memberRepository.save(Member.builder()
+                    .username("member" + i)
+                    .age(10)
+                    .build());
+        }
+
+        // when
+        MemberBatchResult result = memberBatchRunner.run("bulkAgePlus", 10, 4, (em, fromId, toId) ->
+                em.createQuery("update Member m set m.age = m.age + 1, m.lastModifiedDate = current_timestamp where m.memberNo >= :fromId and m.memberNo < :toId")
+                        .setParameter("fromId", fromId)
+                        .setParameter("toId", toId)
+                        .executeUpdate());
+
+        // then
+        assertThat(result.getProcessedCount()).isEqualTo(25);
+        assertThat(memberRepository.findAll()).allMatch(m -> m.getAge() == 11);
+    }
+}
@@ -0,0 +1,106 @@
+package study.datajpa.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BatchingLoaderTest {
+
+    @Test
+    void collapseConcurrentLoads() throws Exception {
+        // given
+        AtomicInteger queries = new AtomicInteger();
+        BatchingLoader<Long, String> loader = new BatchingLoader<>("test", ids -> {
+            queries.incrementAndGet();
+            Map<Long, String> result = new HashMap<>();
+            for (Long id : ids) {
+                if (id % 10 != 0) { // 10의 배수는 없는 id
+                    result.put(id, "member" + id);
+                }
+            }
+            return result;
+        }, Duration.ofMillis(20), 50, 2);
+        ExecutorService callers = Executors.newFixedThreadPool(32);
+
+        // when
+        List<CompletableFuture<String>> results = new ArrayList<>();
+        for (long id = 1; id <= 200; id++) {
+            long key = id % 100 + 1; // 같은 id가 두 번씩 요청된다.
+            results.add(CompletableFuture.supplyAsync(() -> loader.load(key).join(), callers));
+        }
+        CompletableFuture.allOf(results.toArray(new CompletableFuture[0])).join();
+
+        // then
+        System.out.println("requests : 200, queries : " + queries.get());
+        assertThat(queries.get()).isLessThan(200);
+        for (int i = 0; i < results.size(); i++) {
+            long key = (i + 1) % 100 + 1;
+            assertThat(results.get(i).get()).isEqualTo(key % 10 == 0 ? null : "member" + key);
+        }
+        callers.shutdown();
+        loader.close();
+    }
+
+    @Test
+    void errorFailsWholeBatch() {
+        // given : RuntimeException이 아닌 Error를 던지는 bulkLoader
+        BatchingLoader<Long, String> loader = new BatchingLoader<>("test", ids -> {
+            throw new AssertionError("boom");
+        }, Duration.ofMillis(20), 50, 1);
+
+        // when
+        CompletableFuture<String> first = loader.load(1L);
+        CompletableFuture<String> second = loader.load(2L);
+
+        // then : 둘 다 끝나지 않고 기다리는 일 없이 같은 예외로 실패한다.
+        assertThatThrownBy(() -> first.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(AssertionError.class);
+        assertThatThrownBy(() -> second.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(AssertionError.class);
+        loader.close();
+    }
+
+    @Test
+    void closeFailsPendingLoads() throws Exception {
+        // given : 워커 하나가 첫 배치에서 막혀 있어서 다음 요청들은 배치로 넘어가지 못한다.
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        BatchingLoader<Long, String> loader = new BatchingLoader<>("test", ids -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return Map.of();
+        }, Duration.ofMillis(1), 1, 1);
+        CompletableFuture<String> blocked = loader.load(1L);
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        List<CompletableFuture<String>> pending = new ArrayList<>();
+        for (long id = 2; id <= 5; id++) {
+            pending.add(loader.load(id));
+        }
+
+        // when
+        loader.close();
+        release.countDown();
+
+        // then : 종료 시점에 기다리던 요청과 종료 후 요청은 모두 실패한다. (이미 실행 중인 배치는 끝까지 실행)
+        for (CompletableFuture<String> future : pending) {
+            assertThatThrownBy(() -> future.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(IllegalStateException.class);
+        }
+        assertThatThrownBy(() -> loader.load(6L).get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(IllegalStateException.class);
+        assertThat(blocked.get(5, TimeUnit.SECONDS)).isNull();
+    }
+}
@@ -0,0 +1,47 @@
+package study.datajpa.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FenwickTreeTest {
+
+    @Test
+    void sumsMatchBruteForce() {
+        // given
+        Random random = new Random(42);
+        long[] counts = new long[101];
+        for (int i = 0; i < 1000; i++) {
+            counts[random.nextInt(counts.length)]++;
+        }
+        FenwickTree built = FenwickTree.of(counts);
+        FenwickTree added = new FenwickTree(counts.length);
+        for (int i = 0; i < counts.length; i++) {
+            added.add(i, counts[i]);
+        }
+
+        // when : 나이 하나를 옮기는 것과 같은 갱신
+        counts[30]--;
+        counts[31]++;
+        built.add(30, -1);
+        built.add(31, 1);
+        added.add(30, -1);
+        added.add(31, 1);
+
+        // then
+        for (int from = 0; from < counts.length; from += 7) {
+            for (int to = from; to < counts.length; to += 5) {
+                long expected = 0;
+                for (int i = from; i <= to; i++) {
+                    expected += counts[i];
+                }
+                assertThat(built.rangeSum(from, to)).isEqualTo(expected);
+                assertThat(added.rangeSum(from, to)).isEqualTo(expected);
+            }
+        }
+        assertThat(built.prefixSum(-1)).isZero();
+        assertThat(built.prefixSum(1000)).isEqualTo(1000);
+    }
+}
@@ -0,0 +1,75 @@
+package study.datajpa.cache;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.util.ReflectionTestUtils;
+import study.datajpa.dto.RollupBucketDto;
+import study.datajpa.entity.Item;
+import study.datajpa.event.EntityChangeType;
+import study.datajpa.event.EntityChangedEvent;
+import study.datajpa.repository.ItemRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 커밋된 뒤에 이벤트로 갱신되기 때문에 @Transactional을 붙이면 안된다.
+ * 일 단위 칸 전체를 더해서 비교한다. (테스트 중에 자정이 지나도 칸이 바뀔 뿐 합은 같다)
+ */
+@SpringBootTest(properties = "item.rollup.days=7")
+class ItemCreationRollupTest {
+
+    @Autowired
+    ItemCreationRollup itemCreationRollup;
+
+    @Autowired
+    ItemRepository itemRepository;
+
+    List<Item> saved = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        itemRepository.deleteAllInBatch(saved);
+    }
+
+    @Test
+    void countCreatedItems() {
+        // given
+        long before = total();
+
+        // when
+        for (int i = 0; i < 5; i++) {
+            saved.add(itemRepository.save(new Item(UUID.randomUUID().toString())));
+        }
+
+        // then
+        assertThat(total()).isEqualTo(before + 5);
+        assertThat(itemCreationRollup.last(ItemCreationRollup.Resolution.MINUTE, 60)).hasSize(60);
+    }
+
+    @Test
+    void countItemCommittedAfterCutoffOnce() {
+        // given : cutoff 직전에 만들어졌고 테이블을 읽은 뒤에 커밋된 Item
+        long before = total();
+        Item item = new Item(UUID.randomUUID().toString());
+        ReflectionTestUtils.setField(item, "createdDate", itemCreationRollup.cutoff().minusSeconds(1));
+
+        // when : 같은 커밋 이벤트가 두 번 와도
+        itemCreationRollup.onEntityChanged(new EntityChangedEvent(item, EntityChangeType.PERSIST));
+        itemCreationRollup.onEntityChanged(new EntityChangedEvent(item, EntityChangeType.PERSIST));
+
+        // then : 한 번만 센다.
+        assertThat(total()).isEqualTo(before + 1);
+    }
+
+    private long total() {
+        return itemCreationRollup.last(ItemCreationRollup.Resolution.DAY, 7).stream()
+                .mapToLong(RollupBucketDto::getCount)
+                .sum();
+    }
+}
@@ -0,0 +1,40 @@
+package study.datajpa.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LongIntMapTest {
+
+    @Test
+    void matchesHashMap() {
+        // given
+        Random random = new Random(7);
+        LongIntMap map = new LongIntMap(4);
+        Map<Long, Integer> expected = new HashMap<>();
+
+        // when : 넣기, 바꾸기, 지우기를 섞어서 (키 범위를 좁게 해서 충돌과 삭제 후 재탐사가 자주 일어나게)
+        for (int i = 0; i < 100_000; i++) {
+            long key = random.nextInt(2_000);
+            if (random.nextInt(3) == 0) {
+                Integer old = expected.remove(key);
+                assertThat(map.remove(key)).isEqualTo(old == null ? LongIntMap.NO_VALUE : old);
+            } else {
+                int value = random.nextInt(150);
+                Integer old = expected.put(key, value);
+                assertThat(map.put(key, value)).isEqualTo(old == null ? LongIntMap.NO_VALUE : old);
+            }
+        }
+
+        // then
+        assertThat(map.size()).isEqualTo(expected.size());
+        for (long key = 0; key < 2_000; key++) {
+            Integer value = expected.get(key);
+            assertThat(map.get(key)).isEqualTo(value == null ? LongIntMap.NO_VALUE : value);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package study.datajpa.cache;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import study.datajpa.dto.MemberAgeDto;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 커밋된 뒤에 이벤트로 갱신되기 때문에 @Transactional을 붙이면 안된다.
+ */
+@SpringBootTest(properties = "member.top-age.k=3")
+class MemberAgeTopKTest {
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @AfterEach
+    void cleanUp() {
+        memberRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void followChanges() {
+        // given
+        for (int age = 1000; age < 1004; age++) {
+            memberRepository.save(Member.builder()
+                    .username("member" + age)
+                    .age(age)
+                    .build());
+        }
+        assertThat(ages(memberRepository.findTopKByAge())).containsExactly(1003, 1002, 1001);
+
+        // when : 1위 삭제
+        Member oldest = memberRepository.findByUsername("member1003").get(0);
+        memberRepository.delete(oldest);
+
+        // then
+        assertThat(ages(memberRepository.findTopKByAge())).containsExactly(1002, 1001, 1000);
+
+        // when : 1001살 이상 +1
+        memberRepository.bulkAgePlus(1001);
+
+        // then
+        assertThat(ages(memberRepository.findTopKByAge())).containsExactly(1003, 1002, 1000);
+        assertThat(ages(memberRepository.findTopKByAge()))
+                .isEqualTo(memberRepository.findTop3ByOrderByAgeDesc().stream().map(Member::getAge).collect(Collectors.toList()));
+    }
+
+    private List<Integer> ages(List<MemberAgeDto> members) {
+        return members.stream().map(MemberAgeDto::getAge).collect(Collectors.toList());
+    }
+}
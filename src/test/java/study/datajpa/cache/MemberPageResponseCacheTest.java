@@ -0,0 +1,63 @@
+package study.datajpa.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import study.datajpa.event.MemberChangeCounter;
+import study.datajpa.event.MembersUpdatedEvent;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MemberPageResponseCacheTest {
+
+    @Test
+    void serveCachedBytesUntilChanged() throws Exception {
+        // given
+        MemberChangeCounter counter = new MemberChangeCounter();
+        MemberPageResponseCache cache = new MemberPageResponseCache(counter, new SimpleMeterRegistry(),
+                100, Duration.ofMinutes(10), 5, true);
+        AtomicInteger renders = new AtomicInteger();
+        MemberPageResponseCache.Renderer renderer = out -> out.write(("{\"render\":" + renders.incrementAndGet() + "}").getBytes(StandardCharsets.UTF_8));
+        PageRequest pageable = PageRequest.of(0, 5, Sort.by(Sort.Direction.DESC, "memberNo"));
+
+        // when
+        String first = write(cache, pageable, renderer);
+        String second = write(cache, PageRequest.of(0, 5, Sort.by(Sort.Direction.DESC, "memberNo")), renderer);
+        counter.onMembersUpdated(new MembersUpdatedEvent(List.of(1L)));
+        String third = write(cache, pageable, renderer);
+
+        // then
+        assertThat(first).isEqualTo("{\"render\":1}");
+        assertThat(second).isEqualTo(first); // 같은 Pageable -> 다시 렌더링하지 않음
+        assertThat(third).isEqualTo("{\"render\":2}"); // 변경 후에는 다시 렌더링
+    }
+
+    @Test
+    void doNotCacheLaterPages() throws Exception {
+        // given
+        MemberPageResponseCache cache = new MemberPageResponseCache(new MemberChangeCounter(), new SimpleMeterRegistry(),
+                100, Duration.ofMinutes(10), 5, false);
+        AtomicInteger renders = new AtomicInteger();
+        MemberPageResponseCache.Renderer renderer = out -> out.write(renders.incrementAndGet());
+
+        // when
+        write(cache, PageRequest.of(5, 5), renderer);
+        write(cache, PageRequest.of(5, 5), renderer);
+
+        // then
+        assertThat(renders.get()).isEqualTo(2);
+    }
+
+    private String write(MemberPageResponseCache cache, PageRequest pageable, MemberPageResponseCache.Renderer renderer) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        cache.write("json", pageable, out, renderer);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,93 @@
+package study.datajpa.cache;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 버퍼가 가득 차면 쓰는 쪽 스레드가 flush 하지 않고 백그라운드 flush로 자리가 날 때까지 기다린다.
+ */
+@SpringBootTest(properties = {
+        "member.write-buffer.max-pending=2",
+        "member.write-buffer.flush-interval=1h",
+        "member.write-buffer.offer-timeout=10s"
+})
+class MemberWriteBufferCapacityTest {
+
+    @Autowired
+    MemberWriteBuffer memberWriteBuffer;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    ApplicationEventPublisher publisher;
+
+    @AfterEach
+    void cleanUp() {
+        memberRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void waitForBackgroundFlushWhenFull() {
+        // given
+        List<Long> memberNos = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            memberNos.add(memberRepository.save(Member.builder()
+                    .username("member" + i)
+                    .age(10)
+                    .build()).getMemberNo());
+        }
+
+        // when : maxPending(2)보다 많은 멤버를 바꿔도 예외 없이 들어간다.
+        for (Long memberNo : memberNos) {
+            memberWriteBuffer.addAge(memberNo, 1);
+        }
+        memberWriteBuffer.flush();
+
+        // then : 한 번씩만 더해진다.
+        assertThat(memberRepository.findAllById(memberNos)).extracting(Member::getAge).containsOnly(11);
+    }
+
+    @Test
+    void updatesAfterShutdownAreFlushedByCaller() {
+        // given : 컨텍스트의 빈은 다른 테스트가 쓰니 따로 만들어서 종료한다.
+        MemberWriteBuffer buffer = new MemberWriteBuffer(jdbcTemplate, transactionManager, publisher,
+                Duration.ofHours(1), 2, Duration.ofMillis(200));
+        List<Long> memberNos = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            memberNos.add(memberRepository.save(Member.builder()
+                    .username("member" + i)
+                    .age(10)
+                    .build()).getMemberNo());
+        }
+        buffer.shutdown();
+
+        // when : 종료 중에 들어온 변경 (maxPending보다 많이)
+        for (Long memberNo : memberNos) {
+            buffer.changeAge(memberNo, 30);
+        }
+
+        // then : 버퍼가 가득 찼다고 실패하지 않고 바로 반영된다.
+        assertThat(memberRepository.findAllById(memberNos)).extracting(Member::getAge).containsOnly(30);
+        assertThat(buffer.hasPending(memberNos.get(0))).isFalse();
+    }
+}
@@ -0,0 +1,52 @@
+package study.datajpa.cache;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class MemberWriteBufferTest {
+
+    @Autowired
+    MemberWriteBuffer memberWriteBuffer;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @AfterEach
+    void cleanUp() {
+        memberRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void coalesceAndFlush() {
+        // given
+        Member member = memberRepository.save(Member.builder()
+                .username("member1")
+                .age(10)
+                .build());
+        Long memberNo = member.getMemberNo();
+
+        // when
+        for (int i = 0; i < 100; i++) {
+            memberWriteBuffer.changeUsername(memberNo, "member1-" + i);
+            memberWriteBuffer.addAge(memberNo, 1);
+        }
+
+        // then
+        assertThat(memberWriteBuffer.age(memberNo, 10)).isEqualTo(110); // 반영 전에도 대기 중인 값이 보인다.
+        assertThat(memberRepository.findById(memberNo).get().getAge()).isEqualTo(10);
+
+        memberWriteBuffer.flush();
+
+        Member findMember = memberRepository.findById(memberNo).get();
+        assertThat(memberWriteBuffer.hasPending(memberNo)).isFalse();
+        assertThat(findMember.getUsername()).isEqualTo("member1-99");
+        assertThat(findMember.getAge()).isEqualTo(110);
+    }
+}
@@ -0,0 +1,25 @@
+package study.datajpa.cache;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TimeBucketRingTest {
+
+    @Test
+    void wrapAround() {
+        // given : 60초 칸 5개
+        TimeBucketRing ring = new TimeBucketRing(60, 5);
+
+        // when
+        ring.add(0, 1);
+        ring.add(59, 1);
+        ring.add(120, 3);
+        ring.add(5 * 60, 2); // 0번 칸은 이미 5칸 전 -> 같은 자리를 새 칸으로 사용
+        ring.add(30, 100);   // 너무 오래된 값 -> 버림
+
+        // then
+        assertThat(ring.last(5 * 60, 5)).containsExactly(0, 3, 0, 0, 2);
+        assertThat(ring.startOf(5 * 60, 5, 0)).isEqualTo(60);
+    }
+}
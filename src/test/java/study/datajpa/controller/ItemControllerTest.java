@@ -0,0 +1,39 @@
+package study.datajpa.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class ItemControllerTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Test
+    void creationRollup() throws Exception {
+        mockMvc.perform(get("/items/creation-rollup").param("resolution", "hour").param("last", "24"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(24));
+    }
+
+    @Test
+    void creationRollupBadRequest() throws Exception {
+        mockMvc.perform(get("/items/creation-rollup").param("resolution", "week"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").exists());
+        mockMvc.perform(get("/items/creation-rollup").param("last", "0"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/items/creation-rollup").param("resolution", "minute").param("last", "100000"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/items/creation-rollup").param("last", "abc"))
+                .andExpect(status().isBadRequest());
+    }
+}
@@ -0,0 +1,206 @@
+package study.datajpa.controller;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.TeamRepository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 캐시와 ETag가 커밋 이벤트로 바뀌기 때문에 @Transactional을 붙이지 않는다.
+ */
+@SpringBootTest(properties = "member.batch.max-size=3")
+@AutoConfigureMockMvc
+class MemberControllerTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    TeamRepository teamRepository;
+
+    @AfterEach
+    void cleanUp() {
+        memberRepository.deleteAllInBatch();
+        teamRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void conditionalGetMember() throws Exception {
+        // given
+        Member member = memberRepository.save(Member.builder()
+                .username("member1")
+                .age(10)
+                .build());
+        String eTag = mockMvc.perform(get("/members/{id}", member.getMemberNo()))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        // when, then : 그대로면 304
+        mockMvc.perform(get("/members/{id}", member.getMemberNo()).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified());
+
+        // when, then : 수정되면 수정일이 바뀌니 200 (수정일이 같은 밀리초가 되지 않게 조금 쉰다)
+        Thread.sleep(10);
+        member.changeUsername("member2");
+        memberRepository.save(member);
+        String changedETag = mockMvc.perform(get("/members/{id}", member.getMemberNo()).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(changedETag).isNotEqualTo(eTag);
+    }
+
+    @Test
+    void conditionalGetMemberAfterTeamRename() throws Exception {
+        // given
+        Team team = teamRepository.save(Team.builder().name("teamA").build());
+        Member member = memberRepository.save(Member.builder()
+                .username("member1")
+                .age(10)
+                .team(team)
+                .build());
+        MockHttpServletResponse first = mockMvc.perform(get("/members/{id}", member.getMemberNo()))
+                .andExpect(status().isOk())
+                .andReturn().getResponse();
+        String eTag = first.getHeader(HttpHeaders.ETAG);
+        String lastModified = first.getHeader(HttpHeaders.LAST_MODIFIED);
+
+        // when : 멤버는 그대로 두고 팀 이름만 바꾼다.
+        Thread.sleep(1000); // Last-Modified는 초 단위
+        team.changeName("teamB");
+        teamRepository.save(team);
+
+        // then : 응답의 teamName이 바뀌었으니 ETag, Last-Modified 어느 쪽으로 물어봐도 200
+        String changedETag = mockMvc.perform(get("/members/{id}", member.getMemberNo()).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.teamName").value("teamB"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(changedETag).isNotEqualTo(eTag);
+        mockMvc.perform(get("/members/{id}", member.getMemberNo()).header(HttpHeaders.IF_MODIFIED_SINCE, lastModified))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void conditionalGetMembers() throws Exception {
+        // given
+        memberRepository.save(Member.builder()
+                .username("member1")
+                .age(10)
+                .build());
+        String jsonETag = mockMvc.perform(get("/members"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        // when, then : 같은 표현이면 304
+        mockMvc.perform(get("/members").header(HttpHeaders.IF_NONE_MATCH, jsonETag))
+                .andExpect(status().isNotModified());
+
+        // when, then : compact 표현은 ETag가 다르니 json ETag로는 304가 나오면 안된다.
+        String compactETag = mockMvc.perform(get("/members").param("format", "compact").header(HttpHeaders.IF_NONE_MATCH, jsonETag))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(compactETag).isNotEqualTo(jsonETag);
+        mockMvc.perform(get("/members").param("format", "compact").header(HttpHeaders.IF_NONE_MATCH, compactETag))
+                .andExpect(status().isNotModified());
+
+        // when, then : 멤버가 바뀌면 200
+        memberRepository.save(Member.builder()
+                .username("member2")
+                .age(20)
+                .build());
+        mockMvc.perform(get("/members").header(HttpHeaders.IF_NONE_MATCH, jsonETag))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void batchByIds() throws Exception {
+        // given
+        Member member = memberRepository.save(Member.builder()
+                .username("member1")
+                .age(10)
+                .build());
+        long missing = member.getMemberNo() + 1000;
+
+        // when, then : 요청 순서대로, 없는 id는 found = false
+        mockMvc.perform(post("/members/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"ids\":[" + missing + "," + member.getMemberNo() + "]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].key").value(missing))
+                .andExpect(jsonPath("$[0].found").value(false))
+                .andExpect(jsonPath("$[1].found").value(true))
+                .andExpect(jsonPath("$[1].member.username").value("member1"));
+    }
+
+    @Test
+    void batchByUsernamesWithTeam() throws Exception {
+        // given
+        Team team = teamRepository.save(Team.builder().name("teamA").build());
+        memberRepository.save(Member.builder()
+                .username("member1")
+                .age(10)
+                .team(team)
+                .build());
+
+        // when, then
+        mockMvc.perform(post("/members/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"usernames\":[\"member1\",\"nobody\"]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].member.teamName").value("teamA"))
+                .andExpect(jsonPath("$[1].key").value("nobody"))
+                .andExpect(jsonPath("$[1].found").value(false));
+    }
+
+    @Test
+    void batchBadRequest() throws Exception {
+        // ids, usernames 둘 다
+        mockMvc.perform(post("/members/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"ids\":[1],\"usernames\":[\"member1\"]}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").exists());
+
+        // member.batch.max-size(3) 초과
+        mockMvc.perform(post("/members/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"ids\":[1,2,3,4]}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void memberNotFound() throws Exception {
+        // given
+        Member member = memberRepository.save(Member.builder()
+                .username("member1")
+                .age(10)
+                .build());
+        long missing = member.getMemberNo() + 1000;
+
+        // when, then : 없는 멤버는 400이 아니라 404
+        mockMvc.perform(get("/members/{id}", missing))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/members/{id}/age-rank", missing))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/members2/{id}", missing))
+                .andExpect(status().isNotFound());
+    }
+}
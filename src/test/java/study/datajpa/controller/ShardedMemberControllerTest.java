@@ -0,0 +1,62 @@
+package study.datajpa.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "member.shard.enabled=true",
+        "member.shard.urls=jdbc:h2:mem:shard-controller-0;DB_CLOSE_DELAY=-1,jdbc:h2:mem:shard-controller-1;DB_CLOSE_DELAY=-1"
+})
+@AutoConfigureMockMvc
+class ShardedMemberControllerTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Test
+    void saveFindDelete() throws Exception {
+        // given
+        for (int i = 0; i < 6; i++) {
+            mockMvc.perform(post("/shard/members").param("username", "member" + i).param("age", String.valueOf(10 + i % 2)))
+                    .andExpect(status().isCreated());
+        }
+        String body = mockMvc.perform(post("/shard/members").param("username", "memberX").param("age", "99"))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        long memberNo = objectMapper.readTree(body).get("memberNo").asLong();
+
+        // then
+        mockMvc.perform(get("/shard/members/{id}", memberNo))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.username").value("memberX"));
+        mockMvc.perform(get("/shard/members").param("age", "10").param("sort", "username,desc"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements").value(3))
+                .andExpect(jsonPath("$.content[0].username").value("member4"));
+
+        mockMvc.perform(delete("/shard/members/{id}", memberNo))
+                .andExpect(status().isNoContent());
+        mockMvc.perform(get("/shard/members/{id}", memberNo))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void badSort() throws Exception {
+        mockMvc.perform(get("/shard/members").param("sort", "createdBy"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").exists());
+    }
+}
@@ -0,0 +1,54 @@
+package study.datajpa.entity;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.repository.MemberRepository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * member.audit.auditor-format=BINARY 이면 created_by, updated_by가 16바이트로 저장된다.
+ * (기본 STRING은 나머지 테스트들이 그대로 사용한다)
+ * 컬럼 타입이 다른 테이블을 만들기 때문에 공용 DB가 아니라 따로 인메모리 H2를 쓴다. (캐시된 다른 컨텍스트의 테이블을 덮어쓰지 않도록)
+ */
+@SpringBootTest(properties = {
+        "member.audit.auditor-format=BINARY",
+        "spring.datasource.url=jdbc:h2:mem:auditor-binary;DB_CLOSE_DELAY=-1"
+})
+@Transactional
+class AuditorIdFormatTest {
+
+    @PersistenceContext
+    EntityManager em;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Test
+    void binaryColumn() {
+        // given
+        Member member = memberRepository.save(Member.builder()
+                .username("memberA")
+                .age(10)
+                .build());
+        em.flush();
+        em.clear();
+
+        // when
+        Object column = em.createNativeQuery("select created_by from member where member_id = ?")
+                .setParameter(1, member.getMemberNo())
+                .getSingleResult();
+        Member findMember = memberRepository.findById(member.getMemberNo()).get();
+
+        // then
+        assertThat(column).isInstanceOf(byte[].class);
+        assertThat((byte[]) column).hasSize(AuditorId.BYTES);
+        assertThat(AuditorId.fromBytes((byte[]) column)).isEqualTo(findMember.getCreatedBy());
+        assertThat(findMember.getUpdatedBy()).isNotNull();
+    }
+}
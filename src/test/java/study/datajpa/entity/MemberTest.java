@@ -1,5 +1,6 @@
 package study.datajpa.entity;
 
+import org.hibernate.Hibernate;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -13,6 +14,7 @@ import javax.persistence.PersistenceContext;
 import java.util.List;
 import java.util.Optional;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.*;
 
 @SpringBootTest
@@ -83,4 +85,35 @@ class MemberTest {
         System.out.println("lastModifiedBy : " + findMember.getUpdatedBy());
     }
 
-}
\ No newline at end of file
+    @Test
+    public void changeTeamWithoutInitializeMembers() {
+        // given
+        Team teamA = new Team("TeamA");
+        em.persist(teamA);
+        for (int i = 0; i < 10; i++) {
+            em.persist(Member.builder()
+                    .username("member" + i)
+                    .age(i)
+                    .team(teamA)
+                    .build());
+        }
+        em.flush();
+        em.clear();
+
+        // when
+        Team findTeam = em.find(Team.class, teamA.getTeamNo());
+        Member newMember = Member.builder()
+                .username("newMember")
+                .age(20)
+                .build();
+        em.persist(newMember);
+        newMember.changeTeam(findTeam);
+
+        // then
+        // add(), size(), contains() 모두 컬렉션 초기화 없이 동작해야 한다.
+        assertThat(findTeam.getMembers().size()).isEqualTo(11);
+        assertThat(findTeam.getMembers().contains(newMember)).isTrue();
+        assertThat(Hibernate.isInitialized(findTeam.getMembers())).isFalse();
+    }
+
+}
@@ -0,0 +1,134 @@
+package study.datajpa.journal;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+import study.datajpa.entity.Item;
+import study.datajpa.event.EntityChangeType;
+import study.datajpa.event.EntityChangedEvent;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ChangeJournalTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void appendRollAndReplay() throws Exception {
+        // given : 세그먼트 하나에 레코드가 몇 개만 들어가도록 작게
+        ChangeJournal journal = new ChangeJournal(directory.toString(), DataSize.ofBytes(128), 100);
+        List<Long> offsets = new ArrayList<>();
+        for (long id = 1; id <= 50; id++) {
+            offsets.add(journal.append(JournalRecord.MEMBER, JournalRecord.PERSIST, id, null));
+        }
+        journal.append(JournalRecord.ITEM, JournalRecord.PERSIST, -1, "item-A");
+
+        // when
+        List<Long> ids = new ArrayList<>();
+        List<String> keys = new ArrayList<>();
+        JournalReader reader = journal.reader(0);
+        int read = reader.poll((offset, record) -> {
+            ids.add(record.id());
+            keys.add(record.key());
+        }, 1000);
+
+        // then
+        assertThat(read).isEqualTo(51);
+        assertThat(ids.subList(0, 50)).containsExactlyElementsOf(LongStream.rangeClosed(1, 50).boxed().collect(Collectors.toList()));
+        assertThat(keys.get(50)).isEqualTo("item-A");
+        assertThat(reader.offset()).isEqualTo(journal.endOffset());
+        assertThat(reader.poll((offset, record) -> { }, 1000)).isZero();
+
+        // 중간 오프셋부터
+        List<Long> fromMiddle = new ArrayList<>();
+        journal.reader(offsets.get(30)).poll((offset, record) -> fromMiddle.add(record.id()), 5);
+        assertThat(fromMiddle).containsExactly(31L, 32L, 33L, 34L, 35L);
+
+        // 다시 열어도 이어서 쓴다.
+        journal.close();
+        ChangeJournal reopened = new ChangeJournal(directory.toString(), DataSize.ofBytes(128), 100);
+        assertThat(reopened.endOffset()).isEqualTo(journal.endOffset());
+        long offset = reopened.append(JournalRecord.TEAM, JournalRecord.REMOVE, 7, null);
+        List<Byte> changes = new ArrayList<>();
+        reopened.reader(offset).poll((o, record) -> changes.add(record.change()), 10);
+        assertThat(changes).containsExactly(JournalRecord.REMOVE);
+    }
+
+    @Test
+    void deleteOldSegments() throws Exception {
+        // given
+        ChangeJournal journal = new ChangeJournal(directory.toString(), DataSize.ofBytes(128), 2);
+        for (long id = 1; id <= 50; id++) {
+            journal.append(JournalRecord.MEMBER, JournalRecord.UPDATE, id, null);
+        }
+
+        // when : 지워진 오프셋부터 읽으면
+        List<Long> ids = new ArrayList<>();
+        JournalReader reader = journal.reader(0);
+
+        // then : 건너뛰지 않고 잘렸다고 알려준다.
+        assertThat(journal.startOffset()).isGreaterThan(0);
+        assertThatThrownBy(() -> reader.poll((offset, record) -> ids.add(record.id()), 1000))
+                .isInstanceOfSatisfying(JournalTruncatedException.class, e -> {
+                    assertThat(e.getRequestedOffset()).isZero();
+                    assertThat(e.getStartOffset()).isEqualTo(journal.startOffset());
+                });
+        assertThat(ids).isEmpty();
+        assertThat(reader.offset()).isZero();
+
+        // 다시 만든 다음 남아있는 첫 세그먼트부터는 읽을 수 있다.
+        journal.reader(journal.startOffset()).poll((offset, record) -> ids.add(record.id()), 1000);
+        assertThat(ids).isNotEmpty().endsWith(50L);
+        assertThat(ids.get(0)).isGreaterThan(1L);
+    }
+
+    @Test
+    void reopenAppliesRetention() throws Exception {
+        // given : 세그먼트를 많이 남겨두고
+        ChangeJournal journal = new ChangeJournal(directory.toString(), DataSize.ofBytes(128), 100);
+        for (long id = 1; id <= 50; id++) {
+            journal.append(JournalRecord.MEMBER, JournalRecord.UPDATE, id, null);
+        }
+        journal.close();
+
+        // when : 더 적은 max-segments로 다시 열면
+        ChangeJournal reopened = new ChangeJournal(directory.toString(), DataSize.ofBytes(128), 2);
+
+        // then : 열 때 바로 지운다.
+        assertThat(reopened.startOffset()).isGreaterThan(0);
+        assertThat(reopened.endOffset()).isEqualTo(journal.endOffset());
+        assertThatThrownBy(() -> reopened.reader(0).poll((offset, record) -> { }, 1000))
+                .isInstanceOf(JournalTruncatedException.class);
+        List<Long> ids = new ArrayList<>();
+        reopened.reader(reopened.startOffset()).poll((offset, record) -> ids.add(record.id()), 1000);
+        assertThat(ids).isNotEmpty().endsWith(50L);
+        assertThat(ids.get(0)).isGreaterThan(1L);
+    }
+
+    @Test
+    void appendFailureIsCounted() throws Exception {
+        // given
+        ChangeJournal journal = new ChangeJournal(directory.toString(), DataSize.ofKilobytes(64), 4);
+
+        // when : key가 너무 긴 Item (커밋 뒤라서 예외를 던지지 않는다)
+        journal.onEntityChanged(new EntityChangedEvent(new Item("x".repeat(40000)), EntityChangeType.PERSIST));
+
+        // then
+        assertThat(journal.appendFailures()).isEqualTo(1);
+        assertThat(journal.isFailing()).isTrue();
+        assertThat(journal.lastFailure()).contains("key");
+
+        // 다음 덧붙이기가 성공하면 다시 정상
+        journal.onEntityChanged(new EntityChangedEvent(new Item("item-A"), EntityChangeType.PERSIST));
+        assertThat(journal.isFailing()).isFalse();
+        assertThat(journal.appendFailures()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,103 @@
+package study.datajpa.monitoring;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberJpaRepository;
+import study.datajpa.repository.MemberRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * measure()가 DDL(create/drop index)을 실행하기 때문에 @Transactional을 붙이지 않는다.
+ */
+@SpringBootTest
+class IndexAdvisorTest {
+
+    @Autowired
+    IndexAdvisor indexAdvisor;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @AfterEach
+    void cleanUp() {
+        memberRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void adviseAllRepositoriesAndExecutedSql() {
+        // given : 인터페이스가 없는 리포지토리(MemberJpaRepository)의 쿼리는 실행된 SQL로만 알 수 있다.
+        memberJpaRepository.findByPage(10, 0, 3);
+
+        // when
+        List<IndexAdvice> advices = indexAdvisor.advise();
+
+        // then : where member0_.age=? order by member0_.username desc -> (age, username) 인덱스로 커버
+        assertThat(advices).anySatisfy(advice -> {
+            assertThat(advice.getSource()).startsWith("sql : ").containsIgnoringCase("order by");
+            assertThat(advice.getTable()).isEqualTo("member");
+            assertThat(advice.getColumns()).containsExactly("age", "username");
+            assertThat(advice.isCovered()).isTrue();
+        });
+        // MemberRepository 말고 다른 리포지토리도 읽는다. (별칭 c, 필드 jobName -> 컬럼 job_name, 유니크 제약으로 커버)
+        assertThat(advices).anySatisfy(advice -> {
+            assertThat(advice.getSource()).isEqualTo("BatchCheckpointRepository.findChunkStartsByJobName");
+            assertThat(advice.getTable()).isEqualTo("batch_checkpoint");
+            assertThat(advice.getColumns()).containsExactly("job_name");
+            assertThat(advice.isCovered()).isTrue();
+        });
+        // 조인한 엔티티의 필드(m.team.name)는 그 테이블로 제안한다.
+        assertThat(advices).anySatisfy(advice -> {
+            assertThat(advice.getSource()).isEqualTo("MemberRepository.findMemberDtoByTeamName");
+            assertThat(advice.getTable()).isEqualTo("team");
+            assertThat(advice.getColumns()).containsExactly("name");
+        });
+    }
+
+    @Test
+    void parseAliasesGenerically() {
+        // when : m이 아닌 별칭, 조인 별칭
+        Map<String, List<String>> columns = indexAdvisor.columnsOfJpql(
+                "select x from Member x left join x.team tm where tm.name = :name and x.age > :age order by x.username");
+
+        // then
+        assertThat(columns.get("team")).containsExactly("name");
+        assertThat(columns.get("member")).containsExactly("age", "username");
+    }
+
+    @Test
+    void measureWithAndWithoutSuggestedIndex() {
+        // given : created_date에는 인덱스가 없다.
+        List<Member> members = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            members.add(Member.builder()
+                    .username("member" + i)
+                    .age(i % 50)
+                    .build());
+        }
+        memberRepository.saveAll(members);
+        String sql = "select member_id from member where created_date = timestamp '2000-01-01 00:00:00'";
+        Map<String, List<String>> advice = indexAdvisor.columnsOfSql(sql);
+        assertThat(advice.get("member")).containsExactly("created_date");
+
+        // when
+        IndexMeasurement measurement = indexAdvisor.measure(sql, "member", advice.get("member"), 20);
+
+        // then : 같은 쿼리가 인덱스 없이는 풀스캔, 인덱스가 있으면 그 인덱스를 탄다.
+        System.out.println("without index : " + measurement.getWithoutIndexMicros() + "us, with index : " + measurement.getWithIndexMicros() + "us");
+        assertThat(measurement.getPlanWithoutIndex()).containsIgnoringCase("tableScan");
+        assertThat(measurement.getPlanWithIndex()).containsIgnoringCase(measurement.getIndex());
+        // 비교가 끝나면 만든 인덱스는 지운다. (남아있으면 '이미 인덱스가 있습니다'로 실패)
+        assertThat(indexAdvisor.measure(sql, "member", advice.get("member"), 1).getIndex()).isEqualTo(measurement.getIndex());
+    }
+}
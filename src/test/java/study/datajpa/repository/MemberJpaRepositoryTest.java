@@ -1,14 +1,21 @@
 package study.datajpa.repository;
 
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.JdbcEventListener;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
 import org.springframework.test.annotation.Rollback;
 import org.springframework.transaction.annotation.Transactional;
 import study.datajpa.entity.Member;
 
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.sql.SQLException;
 import java.util.List;
 import java.util.Optional;
 
@@ -23,6 +30,12 @@ class MemberJpaRepositoryTest {
     @Autowired
     MemberJpaRepository memberJpaRepository;
 
+    @PersistenceContext
+    EntityManager em;
+
+    @Autowired
+    LastStatement lastStatement;
+
     @Test
     public void testMember() {
         // given
@@ -176,4 +189,67 @@ class MemberJpaRepositoryTest {
         // then
         assertThat(result).isEqualTo(4);
     }
-}
\ No newline at end of file
+
+    /**
+     * findByPage(where age = ? order by username desc)가 (age, username) 인덱스를 타는지 실행계획으로 확인
+     * 손으로 쓴 SQL이 아니라 하이버네이트가 실제로 만든 SQL(값 포함)을 LastStatement로 잡아서 explain 한다.
+     */
+    @Test
+    public void findByPageUsesIndex() {
+        // given
+        for (int i = 0; i < 1000; i++) {
+            memberJpaRepository.save(Member.builder()
+                    .username("member" + i)
+                    .age(i % 50)
+                    .build());
+        }
+        em.flush();
+
+        // when
+        lastStatement.clear();
+        List<Member> members = memberJpaRepository.findByPage(10, 0, 3);
+        String sql = lastStatement.get();
+        String plan = (String) em.createNativeQuery("explain " + sql)
+                .getSingleResult();
+
+        // then
+        assertThat(members.size()).isEqualTo(3);
+        assertThat(sql).containsIgnoringCase("order by").containsIgnoringCase("limit");
+        assertThat(plan).containsIgnoringCase("idx_member_age_username");
+    }
+
+    /**
+     * 현재 스레드에서 마지막으로 실행된 select (값 포함)
+     */
+    @TestConfiguration
+    static class LastStatementConfig {
+
+        @Bean
+        LastStatement lastStatement() {
+            return new LastStatement();
+        }
+    }
+
+    static class LastStatement extends JdbcEventListener {
+
+        private static final ThreadLocal<String> SQL = new ThreadLocal<>();
+
+        @Override
+        public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+            String sql = statementInformation.getSql();
+            if (e == null && sql != null && sql.trim().regionMatches(true, 0, "select", 0, "select".length())) {
+                SQL.set(statementInformation.getSqlWithValues());
+            }
+        }
+
+        void clear() {
+            SQL.remove();
+        }
+
+        String get() {
+            String sql = SQL.get();
+            assertThat(sql).as("실행된 select가 없습니다.").isNotNull();
+            return sql;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package study.datajpa.repository;
 
+import org.hibernate.Hibernate;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -7,6 +8,7 @@ import org.springframework.data.domain.*;
 import org.springframework.test.annotation.Rollback;
 import org.springframework.transaction.annotation.Transactional;
 import study.datajpa.dto.MemberDto;
+import study.datajpa.dto.MemberSearchCondition;
 import study.datajpa.dto.UsernameOnlyDto;
 import study.datajpa.entity.Member;
 import study.datajpa.entity.Team;
@@ -252,6 +254,29 @@ public class MemberRepositoryTest {
         }
     }
 
+    @Test
+    public void findWithTeamByNames() {
+        // given
+        Team team = teamRepository.save(Team.builder().name("graphTeam").build());
+        memberRepository.save(Member.builder()
+                .username("graphMember")
+                .age(20)
+                .team(team)
+                .build());
+        em.flush();
+        em.clear();
+
+        // when
+        List<Member> plain = memberRepository.findByNames(List.of("graphMember"));
+        em.clear();
+        List<Member> withTeam = memberRepository.findWithTeamByNames(List.of("graphMember"));
+
+        // then : findByNames는 그대로 팀을 지연로딩하고, findWithTeamByNames만 팀을 같이 조회한다.
+        assertThat(Hibernate.isInitialized(plain.get(0).getTeam())).isFalse();
+        assertThat(Hibernate.isInitialized(withTeam.get(0).getTeam())).isTrue();
+        assertThat(withTeam.get(0).getTeam().getName()).isEqualTo("graphTeam");
+    }
+
     @Test
     public void returnTypeTest() throws Exception {
         Member member1 = Member.builder()
@@ -646,4 +671,114 @@ public class MemberRepositoryTest {
         }
     }
 
+    @Test
+    public void findTeamMembersAfter() {
+        // given
+        Team teamA = Team.builder()
+                .name("teamA")
+                .build();
+        teamRepository.save(teamA);
+        for (int i = 0; i < 5; i++) {
+            memberRepository.save(Member.builder()
+                    .username("member" + i)
+                    .age(10)
+                    .team(teamA)
+                    .build());
+        }
+        em.flush();
+        em.clear();
+
+        // when
+        Slice<Member> first = memberRepository.findTeamMembersAfter(teamA.getTeamNo(), 0L, PageRequest.of(0, 3));
+        Long lastMemberNo = first.getContent().get(first.getNumberOfElements() - 1).getMemberNo();
+        Slice<Member> second = memberRepository.findTeamMembersAfter(teamA.getTeamNo(), lastMemberNo, PageRequest.of(0, 3));
+
+        // then
+        assertThat(first.getContent().size()).isEqualTo(3);
+        assertThat(first.hasNext()).isTrue();
+        assertThat(second.getContent().size()).isEqualTo(2);
+        assertThat(second.hasNext()).isFalse();
+        assertThat(memberRepository.countByTeamTeamNo(teamA.getTeamNo())).isEqualTo(5);
+    }
+
+    @Test
+    public void search() {
+        // given
+        Team teamA = Team.builder()
+                .name("teamA")
+                .build();
+        teamRepository.save(teamA);
+        memberRepository.save(Member.builder()
+                .username("member1")
+                .age(10)
+                .team(teamA)
+                .build());
+        memberRepository.save(Member.builder()
+                .username("member2")
+                .age(20)
+                .team(teamA)
+                .build());
+        memberRepository.save(Member.builder()
+                .username("member3")
+                .age(30)
+                .build());
+        em.flush();
+        em.clear();
+
+        // when
+        MemberSearchCondition condition = MemberSearchCondition.builder()
+                .ageGoe(15)
+                .teamName("teamA")
+                .build();
+        List<Member> result = memberRepository.search(condition, Sort.by(Sort.Direction.DESC, "age"));
+        List<Member> all = memberRepository.search(new MemberSearchCondition(), Sort.by("username"));
+
+        // then
+        assertThat(result.size()).isEqualTo(1);
+        assertThat(result.get(0).getUsername()).isEqualTo("member2");
+        assertThat(all.size()).isEqualTo(3);
+        assertThat(all.get(0).getUsername()).isEqualTo("member1");
+    }
+
+    @Test
+    public void searchSortOptions() {
+        // given
+        Team teamA = Team.builder()
+                .name("teamA")
+                .build();
+        teamRepository.save(teamA);
+        memberRepository.save(Member.builder()
+                .username("b")
+                .age(10)
+                .team(teamA)
+                .build());
+        memberRepository.save(Member.builder()
+                .username("A")
+                .age(10)
+                .build());
+        memberRepository.save(Member.builder()
+                .username("C")
+                .age(10)
+                .team(teamA)
+                .build());
+        em.flush();
+        em.clear();
+        MemberSearchCondition condition = new MemberSearchCondition();
+
+        // when
+        List<Member> ignoreCase = memberRepository.search(condition, Sort.by(Sort.Order.asc("username").ignoreCase()));
+        List<Member> caseSensitive = memberRepository.search(condition, Sort.by(Sort.Order.asc("username")));
+        List<Member> nullsFirst = memberRepository.search(condition, Sort.by(Sort.Order.asc("teamName").nullsFirst(), Sort.Order.asc("username")));
+        List<Member> nullsLast = memberRepository.search(condition, Sort.by(Sort.Order.asc("teamName").nullsLast(), Sort.Order.asc("username")));
+        // 같은 필드를 반복해도 처음 것만 적용된다.
+        List<Member> repeated = memberRepository.search(condition, Sort.by(Sort.Order.desc("username"), Sort.Order.asc("username"), Sort.Order.desc("username")));
+
+        // then
+        assertThat(ignoreCase).extracting(Member::getUsername).containsExactly("A", "b", "C");
+        assertThat(caseSensitive).extracting(Member::getUsername).containsExactly("A", "C", "b");
+        assertThat(nullsFirst).extracting(Member::getUsername).containsExactly("A", "C", "b");
+        assertThat(nullsLast).extracting(Member::getUsername).containsExactly("C", "b", "A");
+        assertThat(repeated).extracting(Member::getUsername).containsExactly("b", "C", "A");
+    }
+
 }
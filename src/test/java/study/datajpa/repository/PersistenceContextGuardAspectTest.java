@@ -0,0 +1,52 @@
+package study.datajpa.repository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.Session;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.entity.Member;
+
+import javax.persistence.EntityManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "member.pc-guard.enabled=true",
+        "member.pc-guard.max-entities=50"
+})
+@Transactional
+class PersistenceContextGuardAspectTest {
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Test
+    void flushClearWhenTooManyManagedEntities() {
+        // when
+        Member last = null;
+        for (int i = 0; i < 200; i++) {
+            last = memberRepository.save(Member.builder()
+                    .username("member" + i)
+                    .age(i)
+                    .build());
+        }
+
+        // then : 호출 전에 정리하니 max-entities + 방금 저장한 것 까지만 남고, 방금 반환된 엔티티는 영속 상태다.
+        int managed = em.unwrap(Session.class).getStatistics().getEntityCount();
+        assertThat(managed).isLessThanOrEqualTo(51);
+        assertThat(em.contains(last)).isTrue();
+        last.changeUsername("changed");
+        assertThat(meterRegistry.counter("persistence.context.guard", "action", "flush-clear").count()).isGreaterThan(0);
+        assertThat(memberRepository.count()).isEqualTo(200);
+        em.flush();
+        assertThat(memberRepository.findByUsername("changed")).hasSize(1);
+    }
+}
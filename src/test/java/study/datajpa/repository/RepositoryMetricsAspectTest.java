@@ -0,0 +1,51 @@
+package study.datajpa.repository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.IncorrectResultSizeDataAccessException;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.entity.Member;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@Transactional
+class RepositoryMetricsAspectTest {
+
+    private static final String METHOD = "findMemberByUsername(String)";
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Test
+    void recordOutcome() {
+        // given : 단건 조회에 2건이 걸리도록
+        memberRepository.save(Member.builder().username("dup").age(10).build());
+        memberRepository.save(Member.builder().username("dup").age(20).build());
+        long successBefore = count("success");
+        long errorBefore = count("error");
+
+        // when
+        assertThat(memberRepository.findMemberByUsername("nobody")).isNull();
+        assertThatThrownBy(() -> memberRepository.findMemberByUsername("dup"))
+                .isInstanceOf(IncorrectResultSizeDataAccessException.class);
+
+        // then : 예외가 나도 응답시간이 error로 기록된다.
+        assertThat(count("success")).isEqualTo(successBefore + 1);
+        assertThat(count("error")).isEqualTo(errorBefore + 1);
+    }
+
+    private long count(String outcome) {
+        Timer timer = meterRegistry.find("repository.invocations")
+                .tags("method", METHOD, "outcome", outcome)
+                .timer();
+        return timer == null ? 0 : timer.count();
+    }
+}
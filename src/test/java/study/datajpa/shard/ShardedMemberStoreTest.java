@@ -0,0 +1,124 @@
+package study.datajpa.shard;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.persistence.EntityManagerFactory;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 인메모리 H2 3개를 샤드로 사용한다. 테이블 정의는 애플리케이션의 Member 매핑에서 가져온다.
+ */
+@SpringBootTest
+class ShardedMemberStoreTest {
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    private ShardedMemberStore store;
+
+    @AfterEach
+    void close() {
+        store.close();
+    }
+
+    private ShardedMemberStore createStore(ShardKey shardKey) {
+        String name = UUID.randomUUID().toString();
+        List<String> urls = IntStream.range(0, 3)
+                .mapToObj(i -> "jdbc:h2:mem:" + name + "-" + i + ";DB_CLOSE_DELAY=-1")
+                .collect(Collectors.toList());
+        return new ShardedMemberStore(urls, "sa", "", shardKey, new MemberShardSchema(entityManagerFactory));
+    }
+
+    @Test
+    void schemaFollowsEntity() {
+        // given
+        store = createStore(ShardKey.MEMBER_NO);
+        MemberShardSchema schema = new MemberShardSchema(entityManagerFactory);
+
+        // then : 엔티티의 컬럼이 다 있다. (감사 컬럼 포함)
+        assertThat(schema.columnNames()).contains("member_id", "username", "age", "team_no",
+                "created_date", "last_modified_date", "created_by", "updated_by");
+
+        // 엔티티와 다른 테이블이면 실패한다.
+        JdbcTemplate stale = new JdbcTemplate(DataSourceBuilder.create()
+                .url("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1").username("sa").build());
+        stale.execute("create table member (member_id bigint primary key, username varchar(255), age integer not null)");
+        assertThatThrownBy(() -> schema.create(stale))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("created_by");
+    }
+
+    @Test
+    void scatterGatherPaging() {
+        // given
+        store = createStore(ShardKey.MEMBER_NO);
+        List<ShardedMember> saved = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            saved.add(store.save("member" + i, i % 7, null));
+        }
+
+        // when
+        PageRequest pageRequest = PageRequest.of(2, 6, Sort.by(Sort.Direction.DESC, "age").and(Sort.by("username")));
+        Page<ShardedMember> page = store.findAll(pageRequest);
+
+        // then
+        List<ShardedMember> expected = saved.stream()
+                .sorted(Comparator.comparingInt(ShardedMember::getAge).reversed()
+                        .thenComparing(ShardedMember::getUsername)
+                        .thenComparing(ShardedMember::getMemberNo))
+                .skip(12).limit(6)
+                .collect(Collectors.toList());
+        assertThat(page.getContent()).extracting(ShardedMember::getMemberNo)
+                .containsExactlyElementsOf(expected.stream().map(ShardedMember::getMemberNo).collect(Collectors.toList()));
+        assertThat(page.getTotalElements()).isEqualTo(50);
+        // memberNo 해시로 나눠진다. (연속된 memberNo도 세 샤드에 퍼진다)
+        assertThat(saved.stream().map(member -> store.shardOf(member.getMemberNo())).distinct()).hasSize(3);
+        assertThat(saved).allSatisfy(member ->
+                assertThat(store.shardOf(member.getMemberNo())).isEqualTo(Math.floorMod(ShardedMemberStore.hash(member.getMemberNo()), 3)));
+        assertThat(store.findById(saved.get(17).getMemberNo())).contains(saved.get(17));
+
+        Page<ShardedMember> age3 = store.findByAge(3, PageRequest.of(0, 100, Sort.by("memberNo")));
+        assertThat(age3.getContent()).extracting(ShardedMember::getAge).containsOnly(3);
+        assertThat(age3.getTotalElements()).isEqualTo(saved.stream().filter(member -> member.getAge() == 3).count());
+    }
+
+    @Test
+    void pointLookupAndTeamRouting() {
+        // given
+        store = createStore(ShardKey.TEAM);
+        List<ShardedMember> teamA = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            teamA.add(store.save("teamA" + i, 20 + i, 1L));
+            store.save("teamB" + i, 30 + i, 2L);
+        }
+
+        // then : 같은 팀은 같은 샤드
+        assertThat(teamA.stream().map(member -> store.shardOf(member.getMemberNo())).distinct()).hasSize(1);
+        assertThat(store.findByTeamNo(1L, PageRequest.of(1, 4, Sort.by("age"))).getContent())
+                .extracting(ShardedMember::getUsername)
+                .containsExactly("teamA4", "teamA5", "teamA6", "teamA7");
+
+        ShardedMember member = teamA.get(3);
+        assertThat(store.findById(member.getMemberNo())).contains(member);
+        assertThat(store.deleteById(member.getMemberNo())).isTrue();
+        assertThat(store.findById(member.getMemberNo())).isEmpty();
+        assertThat(store.count()).isEqualTo(19);
+    }
+}